@@ -0,0 +1,179 @@
+package com.demoapp.swipedemo;
+
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Long-lived crossfade between the unchecked and the checked drawable of one layer of {@link SwipebleButton}.
+ * The crossfade progress is the drawable level: 0 shows the unchecked drawable, {@link #MAX_LEVEL}
+ * the checked one. Changing direction just moves the level the other way, nothing is allocated.
+ * Like {@link android.graphics.drawable.TransitionDrawable} the unchecked drawable is drawn opaque
+ * and the checked one fades in on top of it.
+ * The children may share their constant state with other buttons, a child is only mutated
+ * the first time it has to be drawn translucent.
+ */
+final class CrossfadeDrawable extends Drawable implements Drawable.Callback {
+
+    static final int MAX_LEVEL = 10000;
+
+    private Drawable unchecked;
+    private Drawable checked;
+    private int alpha = 255;
+    private boolean uncheckedMutated;
+    private boolean checkedMutated;
+
+    CrossfadeDrawable(Drawable unchecked, Drawable checked) {
+        setDrawables(unchecked, checked);
+    }
+
+    /**
+     * Replace the drawables of both states, the current progress is kept
+     */
+    void setDrawables(Drawable unchecked, Drawable checked) {
+        if (this.unchecked != null && this.unchecked != unchecked && this.unchecked != checked) {
+            this.unchecked.setCallback(null);
+        }
+        if (this.checked != null && this.checked != unchecked && this.checked != checked) {
+            this.checked.setCallback(null);
+        }
+        this.unchecked = unchecked;
+        this.checked = checked;
+        uncheckedMutated = false;
+        checkedMutated = false;
+        attach(unchecked);
+        attach(checked);
+        updateAlpha();
+        invalidateSelf();
+    }
+
+    /**
+     * @param progress 0 for unchecked, 1 for checked
+     */
+    void setProgress(float progress) {
+        setLevel((int) (Math.max(0F, Math.min(1F, progress)) * MAX_LEVEL));
+    }
+
+    @Override
+    public void draw(@NonNull Canvas canvas) {
+        int level = getLevel();
+        if (level < MAX_LEVEL && unchecked != null) {
+            unchecked.draw(canvas);
+        }
+        if (level > 0 && checked != null) {
+            checked.draw(canvas);
+        }
+    }
+
+    @Override
+    protected boolean onLevelChange(int level) {
+        updateAlpha();
+        invalidateSelf();
+        return true;
+    }
+
+    @Override
+    protected void onBoundsChange(Rect bounds) {
+        if (unchecked != null) {
+            unchecked.setBounds(bounds);
+        }
+        if (checked != null) {
+            checked.setBounds(bounds);
+        }
+    }
+
+    @Override
+    public boolean getPadding(@NonNull Rect padding) {
+        Drawable current = getLevel() < MAX_LEVEL ? unchecked : checked;
+        if (current != null) {
+            return current.getPadding(padding);
+        }
+        return super.getPadding(padding);
+    }
+
+    @Override
+    public int getIntrinsicWidth() {
+        return Math.max(unchecked != null ? unchecked.getIntrinsicWidth() : -1,
+                checked != null ? checked.getIntrinsicWidth() : -1);
+    }
+
+    @Override
+    public int getIntrinsicHeight() {
+        return Math.max(unchecked != null ? unchecked.getIntrinsicHeight() : -1,
+                checked != null ? checked.getIntrinsicHeight() : -1);
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        if (this.alpha != alpha) {
+            this.alpha = alpha;
+            updateAlpha();
+            invalidateSelf();
+        }
+    }
+
+    @Override
+    public void setColorFilter(@Nullable ColorFilter colorFilter) {
+        if (unchecked != null) {
+            unchecked.setColorFilter(colorFilter);
+        }
+        if (checked != null) {
+            checked.setColorFilter(colorFilter);
+        }
+    }
+
+    @Override
+    public int getOpacity() {
+        return PixelFormat.TRANSLUCENT;
+    }
+
+    @Override
+    public void invalidateDrawable(@NonNull Drawable who) {
+        invalidateSelf();
+    }
+
+    @Override
+    public void scheduleDrawable(@NonNull Drawable who, @NonNull Runnable what, long when) {
+        scheduleSelf(what, when);
+    }
+
+    @Override
+    public void unscheduleDrawable(@NonNull Drawable who, @NonNull Runnable what) {
+        unscheduleSelf(what);
+    }
+
+    /**
+     * Alpha of the children only changes with the level, never while drawing.
+     * A child that is not drawn at the current level keeps its alpha.
+     */
+    private void updateAlpha() {
+        int level = getLevel();
+        if (unchecked != null && level < MAX_LEVEL) {
+            if (alpha != 255 && !uncheckedMutated) {
+                unchecked = unchecked.mutate();
+                uncheckedMutated = true;
+            }
+            unchecked.setAlpha(alpha);
+        }
+        if (checked != null && level > 0) {
+            int checkedAlpha = alpha * level / MAX_LEVEL;
+            if (checkedAlpha != 255 && !checkedMutated) {
+                checked = checked.mutate();
+                checkedMutated = true;
+            }
+            checked.setAlpha(checkedAlpha);
+        }
+    }
+
+    private void attach(Drawable drawable) {
+        if (drawable != null) {
+            drawable.setCallback(this);
+            drawable.setBounds(getBounds());
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.demoapp.swipedemo;
+
+import android.graphics.Paint;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Text layouts of the checked and the unchecked label of {@link SwipebleButton}.
+ * Both layouts are built once and reused for every frame, they are only rebuilt
+ * when the texts, the text size or the available width change.
+ * With an executor the layouts are built off the main thread and handed back to it.
+ * All methods must be called from the main thread.
+ */
+final class LabelLayoutCache {
+
+    interface Callback {
+        /**
+         * Called on the main thread when layouts built by the executor are ready
+         */
+        void onLabelLayoutsReady();
+    }
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Callback callback;
+
+    private Executor executor;
+    private String checkedText;
+    private String uncheckedText;
+    private float textSize;
+    private int width;
+
+    private StaticLayout checkedLayout;
+    private StaticLayout uncheckedLayout;
+    private boolean valid;
+    private boolean building;
+
+    /**
+     * Incremented on every change, results of outdated builds are dropped
+     */
+    private int generation;
+
+    LabelLayoutCache(Callback callback) {
+        this.callback = callback;
+    }
+
+    /**
+     * @param executor executor to build layouts on, null builds them on the main thread when needed
+     */
+    void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    void setCheckedText(String checkedText) {
+        if (!equals(this.checkedText, checkedText)) {
+            this.checkedText = checkedText;
+            invalidate();
+        }
+    }
+
+    void setUncheckedText(String uncheckedText) {
+        if (!equals(this.uncheckedText, uncheckedText)) {
+            this.uncheckedText = uncheckedText;
+            invalidate();
+        }
+    }
+
+    void setTextSize(float textSize) {
+        if (this.textSize != textSize) {
+            this.textSize = textSize;
+            invalidate();
+        }
+    }
+
+    void setWidth(int width) {
+        if (this.width != width) {
+            this.width = width;
+            invalidate();
+        }
+    }
+
+    /**
+     * Start building the layouts ahead of the first draw when an executor is set
+     */
+    void prefetch() {
+        if (!valid && executor != null) {
+            buildAsync();
+        }
+    }
+
+    /**
+     * @param checked state of the label
+     * @return layout of the label or null while it is built or when there is nothing to show
+     */
+    StaticLayout getLayout(boolean checked) {
+        if (!valid) {
+            if (executor != null) {
+                buildAsync();
+                return null;
+            }
+            if (width > 0) {
+                TextPaint paint = createPaint(textSize);
+                checkedLayout = build(checkedText, paint, width);
+                uncheckedLayout = build(uncheckedText, paint, width);
+                valid = true;
+            }
+        }
+        return checked ? checkedLayout : uncheckedLayout;
+    }
+
+    private void invalidate() {
+        generation++;
+        valid = false;
+        building = false;
+        checkedLayout = null;
+        uncheckedLayout = null;
+    }
+
+    private void buildAsync() {
+        if (building || width <= 0) {
+            return;
+        }
+        building = true;
+
+        final int buildGeneration = generation;
+        final String checked = checkedText;
+        final String unchecked = uncheckedText;
+        final float size = textSize;
+        final int buildWidth = width;
+        executor.execute(() -> {
+            TextPaint paint = createPaint(size);
+            StaticLayout checkedResult = build(checked, paint, buildWidth);
+            StaticLayout uncheckedResult = build(unchecked, paint, buildWidth);
+            mainHandler.post(() -> {
+                if (buildGeneration == generation) {
+                    checkedLayout = checkedResult;
+                    uncheckedLayout = uncheckedResult;
+                    valid = true;
+                    building = false;
+                    callback.onLabelLayoutsReady();
+                }
+            });
+        });
+    }
+
+    private static TextPaint createPaint(float textSize) {
+        TextPaint paint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+        paint.setTextSize(textSize);
+        return paint;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static StaticLayout build(String text, TextPaint paint, int width) {
+        if (text == null || text.isEmpty()) {
+            return null;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            return StaticLayout.Builder.obtain(text, 0, text.length(), paint, width)
+                    .setAlignment(Layout.Alignment.ALIGN_CENTER)
+                    .setIncludePad(false)
+                    .build();
+        }
+        return new StaticLayout(text, paint, width, Layout.Alignment.ALIGN_CENTER, 1F, 0F, false);
+    }
+
+    private static boolean equals(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
@@ -0,0 +1,86 @@
+package com.demoapp.swipedemo;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Applies the states of many {@link SwipebleButton}s in one transaction, e.g. for "select all"
+ * or a state sync pushed by a server. All buttons change in the same main thread turn,
+ * so the next frame draws the whole change at once. The buttons do not notify their own listeners,
+ * the group reports all changes with a single callback instead.
+ * Must be used from the main thread.
+ */
+final class SwipeButtonGroup {
+
+    interface Listener {
+        /**
+         * Called once per transaction with every button whose state changed
+         *
+         * @param changes new state of every changed button
+         */
+        void onStatesChanged(Map<SwipebleButton, Boolean> changes);
+    }
+
+    private final Listener listener;
+
+    /**
+     * @param listener listener of the changes, may be null
+     */
+    SwipeButtonGroup(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Jump to the new states without animation
+     *
+     * @param states new state of every button
+     */
+    void applyStates(Map<SwipebleButton, Boolean> states) {
+        Map<SwipebleButton, Boolean> changes = new LinkedHashMap<>();
+        for (Map.Entry<SwipebleButton, Boolean> entry : states.entrySet()) {
+            SwipebleButton button = entry.getKey();
+            boolean checked = entry.getValue();
+            if (button.isChecked != checked) {
+                changes.put(button, checked);
+            }
+            button.setChecked(checked);
+        }
+        dispatchChanges(changes);
+    }
+
+    /**
+     * Commit the new states right away and animate the buttons to them.
+     * The changes are reported before the animations run.
+     *
+     * @param states    new state of every button
+     * @param staggerMs delay between the starts of two consecutive animations, 0 animates all buttons at once
+     */
+    void applyStatesAnimated(Map<SwipebleButton, Boolean> states, long staggerMs) throws Throwable {
+        if (staggerMs < 0) {
+            throw new Throwable("Illegal value argument. Value must be 0 or greater.");
+        }
+        Map<SwipebleButton, Boolean> changes = new LinkedHashMap<>();
+        long delay = 0;
+        for (Map.Entry<SwipebleButton, Boolean> entry : states.entrySet()) {
+            SwipebleButton button = entry.getKey();
+            boolean checked = entry.getValue();
+            if (button.isChecked == checked) {
+                if (button.isTransitionRunning()) {
+                    // a swipe toward the other state would commit it when it ends, bring the toggle back instead
+                    button.commitCheckedAnimated(checked, 0L);
+                }
+                continue;
+            }
+            changes.put(button, checked);
+            button.commitCheckedAnimated(checked, delay);
+            delay += staggerMs;
+        }
+        dispatchChanges(changes);
+    }
+
+    private void dispatchChanges(Map<SwipebleButton, Boolean> changes) {
+        if (listener != null && !changes.isEmpty()) {
+            listener.onStatesChanged(changes);
+        }
+    }
+}
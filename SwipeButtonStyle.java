@@ -0,0 +1,270 @@
+package com.demoapp.swipedemo;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.graphics.drawable.Drawable;
+import android.util.AttributeSet;
+
+import androidx.core.content.ContextCompat;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.WeakHashMap;
+
+/**
+ * Immutable, fully resolved style of {@link SwipebleButton}.
+ * Styles are cached per theme, default style and set of button attributes,
+ * so buttons that look the same share one style and resolve their resources only once.
+ * Drawables are kept as constant states; every button creates its own drawables from them,
+ * which share the underlying bitmaps and paths until a drawable is mutated.
+ */
+final class SwipeButtonStyle {
+
+    private static final WeakHashMap<Resources.Theme, HashMap<Key, SwipeButtonStyle>> CACHE = new WeakHashMap<>();
+
+    final boolean isChecked;
+    final boolean isClickToSwipeEnable;
+    final float thresholdEnd;
+    final float thresholdStart;
+    final String checkedText;
+    final String uncheckedText;
+    final int checkedTextColor;
+    final int uncheckedTextColor;
+    final float textSize;
+    final long animationDuration;
+    final DrawableSource checkedIcon;
+    final DrawableSource uncheckedIcon;
+    final DrawableSource uncheckedToggleBackground;
+    final DrawableSource checkedToggleBackground;
+    final DrawableSource uncheckedBackground;
+    final DrawableSource checkedBackground;
+
+    /**
+     * Get the shared style for the given attributes, it is resolved on the first request only.
+     *
+     * @param context      themed context of the button
+     * @param attrs        passed attributes from XML file, may be null
+     * @param defStyleAttr theme attribute with the default style, may be 0
+     * @param defStyleRes  default style resource, may be 0
+     */
+    static SwipeButtonStyle obtain(Context context, AttributeSet attrs, int defStyleAttr, int defStyleRes) {
+        Key key = Key.of(attrs, defStyleAttr, defStyleRes);
+        Resources.Theme theme = context.getTheme();
+
+        synchronized (CACHE) {
+            HashMap<Key, SwipeButtonStyle> styles = CACHE.get(theme);
+            SwipeButtonStyle style = styles != null ? styles.get(key) : null;
+            if (style != null) {
+                return style;
+            }
+        }
+
+        SwipeButtonStyle style = new SwipeButtonStyle(context, attrs, defStyleAttr, defStyleRes);
+        synchronized (CACHE) {
+            HashMap<Key, SwipeButtonStyle> styles = CACHE.get(theme);
+            if (styles == null) {
+                styles = new HashMap<>();
+                CACHE.put(theme, styles);
+            }
+            styles.put(key, style);
+        }
+        return style;
+    }
+
+    /**
+     * Parse attributes from xml.
+     */
+    private SwipeButtonStyle(Context context, AttributeSet attrs, int defStyleAttr, int defStyleRes) {
+        TypedArray typedArray = context.obtainStyledAttributes(attrs, R.styleable.SwipeableButton, defStyleAttr, defStyleRes);
+
+        isChecked = typedArray.getBoolean(R.styleable.SwipeableButton_isChecked, false);
+        isClickToSwipeEnable = typedArray.getBoolean(R.styleable.SwipeableButton_isClickToSwipeEnable, true);
+        thresholdEnd = typedArray.getFloat(R.styleable.SwipeableButton_thresholdEnd, 0.5f);
+        thresholdStart = typedArray.getFloat(R.styleable.SwipeableButton_thresholdStart, 0.5f);
+
+        checkedText = typedArray.getString(R.styleable.SwipeableButton_textChecked) != null
+                ? typedArray.getString(R.styleable.SwipeableButton_textChecked) : context.getString(
+                typedArray.getResourceId(
+                        R.styleable.SwipeableButton_textChecked,
+                        R.string.checked_text
+                )
+        );
+
+        uncheckedText = typedArray.getString(R.styleable.SwipeableButton_textUnchecked) != null
+                ? typedArray.getString(R.styleable.SwipeableButton_textUnchecked) : context.getString(
+                typedArray.getResourceId(
+                        R.styleable.SwipeableButton_textUnchecked,
+                        R.string.unchecked_text
+                )
+        );
+
+        checkedTextColor = (typedArray.getInt(R.styleable.SwipeableButton_textColorChecked, 0) != 0) ?
+                typedArray.getInt(R.styleable.SwipeableButton_textColorChecked, 0) :
+                ContextCompat.getColor(context, typedArray.getResourceId(
+                        R.styleable.SwipeableButton_textColorChecked,
+                        android.R.color.white
+                ));
+
+        uncheckedTextColor = (typedArray.getInt(R.styleable.SwipeableButton_textColorUnChecked, 0) != 0) ?
+                typedArray.getInt(R.styleable.SwipeableButton_textColorUnChecked, 0) :
+                ContextCompat.getColor(context, typedArray.getResourceId(
+                        R.styleable.SwipeableButton_textColorUnChecked,
+                        android.R.color.black
+                ));
+
+        checkedIcon = DrawableSource.of(context, typedArray, R.styleable.SwipeableButton_checkedIcon, R.drawable.ic_stop, true);
+        uncheckedIcon = DrawableSource.of(context, typedArray, R.styleable.SwipeableButton_uncheckedIcon, R.drawable.ic_play, true);
+        uncheckedToggleBackground = DrawableSource.of(context, typedArray,
+                R.styleable.SwipeableButton_uncheckedToggleBackground, R.drawable.shape_unchecked_toggle, false);
+        checkedToggleBackground = DrawableSource.of(context, typedArray,
+                R.styleable.SwipeableButton_checkedToggleBackground, R.drawable.shape_checked_toggle, false);
+        checkedBackground = DrawableSource.of(context, typedArray,
+                R.styleable.SwipeableButton_checkedBackground, R.drawable.shape_scrolling_view_checked, false);
+        uncheckedBackground = DrawableSource.of(context, typedArray,
+                R.styleable.SwipeableButton_uncheckedBackground, R.drawable.shape_scrolling_view_unchecked, false);
+
+        textSize = (typedArray.getDimensionPixelSize(
+                R.styleable.SwipeableButton_textSize, 0) != 0) ?
+                typedArray.getDimensionPixelSize(R.styleable.SwipeableButton_textSize, 0) :
+                context.getResources().getDimensionPixelSize(R.dimen.default_text_size);
+
+        animationDuration = (long) typedArray.getFloat(
+                R.styleable.SwipeableButton_durationAnimation,
+                SwipebleButton.ANIMATION_DURATION
+        );
+
+        typedArray.recycle();
+    }
+
+    /**
+     * Resolved drawable that every button can create its own instance from
+     */
+    static final class DrawableSource {
+
+        private final Drawable.ConstantState constantState;
+        private final int resId;
+
+        /**
+         * False when the attribute holds a drawable value, e.g. a color, instead of a resource reference
+         */
+        private final boolean isResource;
+
+        private DrawableSource(Drawable.ConstantState constantState, int resId, boolean isResource) {
+            this.constantState = constantState;
+            this.resId = resId;
+            this.isResource = isResource;
+        }
+
+        /**
+         * @param inline true when the attribute may hold a drawable value instead of a resource reference
+         */
+        static DrawableSource of(Context context, TypedArray typedArray, int index, int defaultResId, boolean inline) {
+            int resId = typedArray.getResourceId(index, defaultResId);
+            Drawable drawable = inline ? typedArray.getDrawable(index) : null;
+            boolean isResource = drawable == null || typedArray.getResourceId(index, 0) != 0;
+            if (drawable == null) {
+                drawable = ContextCompat.getDrawable(context, resId);
+            }
+            return new DrawableSource(drawable != null ? drawable.getConstantState() : null, resId, isResource);
+        }
+
+        /**
+         * @return resource the drawable was loaded from, 0 for a drawable value
+         */
+        int getResId() {
+            return isResource ? resId : 0;
+        }
+
+        /**
+         * @return new drawable sharing the resolved state, or a freshly loaded one
+         * when the drawable does not support constant states
+         */
+        Drawable newDrawable(Context context) {
+            if (constantState != null) {
+                return constantState.newDrawable(context.getResources());
+            }
+            return ContextCompat.getDrawable(context, resId);
+        }
+    }
+
+    /**
+     * Cache key: default style and the button attributes set in XML
+     */
+    private static final class Key {
+
+        private final int defStyleAttr;
+        private final int defStyleRes;
+        private final int styleAttribute;
+        private final int[] names;
+        private final String[] values;
+        private final int hash;
+
+        private Key(int defStyleAttr, int defStyleRes, int styleAttribute, int[] names, String[] values) {
+            this.defStyleAttr = defStyleAttr;
+            this.defStyleRes = defStyleRes;
+            this.styleAttribute = styleAttribute;
+            this.names = names;
+            this.values = values;
+            this.hash = 31 * (31 * (31 * (31 * defStyleAttr + defStyleRes) + styleAttribute)
+                    + Arrays.hashCode(names)) + Arrays.hashCode(values);
+        }
+
+        /**
+         * Only attributes of the button take part, layout params and other view attributes do not
+         */
+        static Key of(AttributeSet attrs, int defStyleAttr, int defStyleRes) {
+            if (attrs == null) {
+                return new Key(defStyleAttr, defStyleRes, 0, new int[0], new String[0]);
+            }
+            int count = 0;
+            for (int i = 0; i < attrs.getAttributeCount(); i++) {
+                if (isButtonAttribute(attrs.getAttributeNameResource(i))) {
+                    count++;
+                }
+            }
+            int[] names = new int[count];
+            String[] values = new String[count];
+            int index = 0;
+            for (int i = 0; i < attrs.getAttributeCount(); i++) {
+                int name = attrs.getAttributeNameResource(i);
+                if (isButtonAttribute(name)) {
+                    names[index] = name;
+                    values[index] = attrs.getAttributeValue(i);
+                    index++;
+                }
+            }
+            return new Key(defStyleAttr, defStyleRes, attrs.getStyleAttribute(), names, values);
+        }
+
+        private static boolean isButtonAttribute(int name) {
+            for (int attr : R.styleable.SwipeableButton) {
+                if (attr == name) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return defStyleAttr == key.defStyleAttr
+                    && defStyleRes == key.defStyleRes
+                    && styleAttribute == key.styleAttribute
+                    && Arrays.equals(names, key.names)
+                    && Arrays.equals(values, key.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.demoapp.swipedemo;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * State change of {@link SwipebleButton} that was committed optimistically, at the release of the toggle.
+ * The button animates to the new state while the action runs, the result of the action is reported back
+ * with {@link #confirm()} or {@link #fail()}. A failed commit animates the button back to the previous state.
+ * Both methods may be called from any thread, only the first call counts.
+ */
+final class SwipeCommit {
+
+    interface Listener {
+        /**
+         * Called on the main thread as soon as the release decided the new state
+         *
+         * @param checked new state
+         * @param commit  token to report the result of the action to
+         */
+        void onCommit(boolean checked, SwipeCommit commit);
+    }
+
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    private final SwipebleButton button;
+    private final int generation;
+    private final boolean checked;
+    private final AtomicBoolean resolved = new AtomicBoolean();
+
+    SwipeCommit(SwipebleButton button, int generation, boolean checked) {
+        this.button = button;
+        this.generation = generation;
+        this.checked = checked;
+    }
+
+    int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @return state committed by this token
+     */
+    boolean isChecked() {
+        return checked;
+    }
+
+    /**
+     * The action succeeded, the state stays
+     */
+    void confirm() {
+        resolved.set(true);
+    }
+
+    /**
+     * The action failed, the button goes back to the previous state
+     * unless the state was changed again in the meantime
+     */
+    void fail() {
+        if (resolved.compareAndSet(false, true)) {
+            MAIN_HANDLER.post(() -> button.onCommitFailed(this));
+        }
+    }
+}
@@ -0,0 +1,411 @@
+package com.demoapp.swipedemo;
+
+import android.animation.TimeInterpolator;
+import android.animation.ValueAnimator;
+import android.os.Build;
+import android.view.animation.AccelerateDecelerateInterpolator;
+
+/**
+ * Small animation engine of {@link SwipebleButton}.
+ * All properties of a transition (toggle position, text color, text alpha and text offset)
+ * are advanced once per frame from one clock. Frames come from the shared {@link SwipeFrameTicker},
+ * so many animating buttons still cost a single frame callback.
+ * Values are kept as primitives, so a running transition does not allocate or box anything per frame.
+ * Must be used from the main thread.
+ */
+final class SwipeFrameAnimator {
+
+    interface Listener {
+        /**
+         * Called once per frame after every property was updated
+         */
+        void onAnimationFrame(SwipeFrameAnimator animator);
+
+        /**
+         * Called when the animation reached its end. Not called for cancelled animations.
+         */
+        void onAnimationEnd(SwipeFrameAnimator animator);
+    }
+
+    /**
+     * Interpolator of all toggle animations.
+     * It holds no state, so one instance is shared by every button.
+     */
+    private static final TimeInterpolator INTERPOLATOR = new AccelerateDecelerateInterpolator();
+
+    private static final long NANOS_PER_MS = 1_000_000L;
+
+    private static final float NANOS_PER_SECOND = 1_000_000_000F;
+
+    /**
+     * Spring integration step, small enough to stay stable for stiff springs
+     */
+    private static final float SPRING_STEP_SECONDS = 0.004F;
+
+    /**
+     * Longest frame gap the spring integrates, so a stalled frame does not make it jump
+     */
+    private static final float SPRING_MAX_FRAME_SECONDS = 0.05F;
+
+    /**
+     * The spring is at rest when it is closer than this to the target (px) ...
+     */
+    private static final float SPRING_REST_DISPLACEMENT = 0.5F;
+
+    /**
+     * ... and slower than this (px/s)
+     */
+    private static final float SPRING_REST_VELOCITY = 20F;
+
+    private final SwipeFrameTicker ticker = SwipeFrameTicker.getInstance();
+    private final Listener listener;
+
+    private boolean running;
+    private boolean bounce;
+    private boolean transition;
+    private boolean spring;
+    private long durationNanos;
+    private long startTimeNanos;
+    private long lastFrameTimeNanos;
+    private long frameTimeNanos;
+
+    private float springStiffness;
+    private float springDamping;
+    private float minPosition = -Float.MAX_VALUE;
+    private float maxPosition = Float.MAX_VALUE;
+    private float velocity;
+
+    private float fromPosition;
+    private float toPosition;
+    private int fromColor;
+    private int toColor;
+    private float fromOffset;
+    private float toOffset;
+
+    private float position;
+    private int textColor;
+    private float textAlpha = 1F;
+    private float textOffset;
+    private float fraction;
+
+    SwipeFrameAnimator(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Animate a state change: the toggle moves, the text color blends,
+     * the text fades out and in again and the text offset moves to the other side.
+     */
+    void animateTransition(float fromPosition, float toPosition,
+                           int fromColor, int toColor,
+                           float fromOffset, float toOffset,
+                           long durationMs) {
+        this.fromPosition = fromPosition;
+        this.toPosition = toPosition;
+        this.fromColor = fromColor;
+        this.toColor = toColor;
+        this.fromOffset = fromOffset;
+        this.toOffset = toOffset;
+        this.bounce = false;
+        this.transition = true;
+        this.spring = false;
+        start(durationMs);
+    }
+
+    /**
+     * Same as {@link #animateTransition} but the toggle is moved by a spring
+     * that starts with the given velocity. The text follows the toggle progress.
+     *
+     * @param velocity initial toggle velocity in px/s
+     */
+    void springTransition(float fromPosition, float toPosition, float velocity,
+                          int fromColor, int toColor,
+                          float fromOffset, float toOffset) {
+        this.fromPosition = fromPosition;
+        this.toPosition = toPosition;
+        this.fromColor = fromColor;
+        this.toColor = toColor;
+        this.fromOffset = fromOffset;
+        this.toOffset = toOffset;
+        this.bounce = false;
+        this.transition = true;
+        this.spring = true;
+        startSpring(velocity);
+    }
+
+    /**
+     * Move only the toggle with a spring that starts with the given velocity
+     *
+     * @param velocity initial toggle velocity in px/s
+     */
+    void springPosition(float fromPosition, float toPosition, float velocity) {
+        this.fromPosition = fromPosition;
+        this.toPosition = toPosition;
+        this.fromColor = textColor;
+        this.toColor = textColor;
+        this.fromOffset = textOffset;
+        this.toOffset = textOffset;
+        this.bounce = false;
+        this.transition = false;
+        this.spring = true;
+        startSpring(velocity);
+    }
+
+    /**
+     * Configure the spring used by {@link #springTransition} and {@link #springPosition}
+     *
+     * @param stiffness    spring stiffness, mass is 1
+     * @param dampingRatio 1 is critically damped, smaller values bounce
+     */
+    void setSpring(float stiffness, float dampingRatio) {
+        springStiffness = stiffness;
+        springDamping = 2F * dampingRatio * (float) Math.sqrt(stiffness);
+    }
+
+    /**
+     * The spring never moves the toggle out of these bounds,
+     * it stops against them like against a wall.
+     */
+    void setPositionBounds(float minPosition, float maxPosition) {
+        this.minPosition = minPosition;
+        this.maxPosition = maxPosition;
+    }
+
+    /**
+     * Animate only the toggle position, the text keeps its current values.
+     *
+     * @param bounce when true the toggle goes to {@code toPosition} and comes back to {@code fromPosition}
+     */
+    void animatePosition(float fromPosition, float toPosition, boolean bounce, long durationMs) {
+        this.fromPosition = fromPosition;
+        this.toPosition = toPosition;
+        this.fromColor = textColor;
+        this.toColor = textColor;
+        this.fromOffset = textOffset;
+        this.toOffset = textOffset;
+        this.bounce = bounce;
+        this.transition = false;
+        this.spring = false;
+        start(durationMs);
+    }
+
+    /**
+     * Stop the animation where it is, no end callback is delivered
+     */
+    void cancel() {
+        if (running) {
+            running = false;
+            ticker.removeFrame(this);
+        }
+    }
+
+    /**
+     * Jump to the given values without animation
+     */
+    void setValues(float position, int textColor, float textAlpha, float textOffset) {
+        cancel();
+        this.velocity = 0F;
+        this.position = position;
+        this.textColor = textColor;
+        this.textAlpha = textAlpha;
+        this.textOffset = textOffset;
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * @return true when the current or last animation changes the state
+     */
+    boolean isTransition() {
+        return transition;
+    }
+
+    float getPosition() {
+        return position;
+    }
+
+    /**
+     * @return current toggle velocity in px/s, 0 when no animation runs.
+     * A new animation can start with it to continue the motion without a jerk.
+     */
+    float getVelocity() {
+        return velocity;
+    }
+
+    int getTextColor() {
+        return textColor;
+    }
+
+    float getTextAlpha() {
+        return textAlpha;
+    }
+
+    float getTextOffset() {
+        return textOffset;
+    }
+
+    /**
+     * @return vsync time of the current frame
+     */
+    long getFrameTimeNanos() {
+        return frameTimeNanos;
+    }
+
+    /**
+     * @return progress of the text properties of a transition, from 0 to 1
+     */
+    float getFraction() {
+        return fraction;
+    }
+
+    /**
+     * Advance the animation, called by the ticker
+     */
+    void doFrame(long frameTimeNanos) {
+        if (!running) {
+            return;
+        }
+        this.frameTimeNanos = frameTimeNanos;
+        if (spring) {
+            doSpringFrame(frameTimeNanos);
+            return;
+        }
+        if (startTimeNanos < 0) {
+            startTimeNanos = frameTimeNanos;
+        }
+
+        float progress = durationNanos == 0
+                ? 1F
+                : Math.min(1F, (float) (frameTimeNanos - startTimeNanos) / durationNanos);
+        float previousPosition = position;
+        apply(progress);
+        if (lastFrameTimeNanos >= 0 && frameTimeNanos > lastFrameTimeNanos) {
+            velocity = (position - previousPosition) * NANOS_PER_SECOND / (frameTimeNanos - lastFrameTimeNanos);
+        }
+        lastFrameTimeNanos = frameTimeNanos;
+
+        if (progress >= 1F) {
+            running = false;
+            velocity = 0F;
+            listener.onAnimationFrame(this);
+            listener.onAnimationEnd(this);
+        } else {
+            listener.onAnimationFrame(this);
+            ticker.postFrame(this);
+        }
+    }
+
+    private void doSpringFrame(long frameTimeNanos) {
+        if (lastFrameTimeNanos < 0) {
+            lastFrameTimeNanos = frameTimeNanos;
+        }
+        float remaining = Math.min(SPRING_MAX_FRAME_SECONDS, (frameTimeNanos - lastFrameTimeNanos) / NANOS_PER_SECOND);
+        lastFrameTimeNanos = frameTimeNanos;
+
+        // semi-implicit Euler in fixed steps, unit mass
+        float x = position;
+        float v = velocity;
+        while (remaining > 0F) {
+            float step = Math.min(SPRING_STEP_SECONDS, remaining);
+            v += (-springStiffness * (x - toPosition) - springDamping * v) * step;
+            x += v * step;
+            remaining -= step;
+        }
+        if (x < minPosition) {
+            x = minPosition;
+            v = 0F;
+        } else if (x > maxPosition) {
+            x = maxPosition;
+            v = 0F;
+        }
+        velocity = v;
+
+        boolean atRest = Math.abs(x - toPosition) < SPRING_REST_DISPLACEMENT
+                && Math.abs(v) < SPRING_REST_VELOCITY;
+        applySpring(atRest ? toPosition : x);
+
+        if (atRest) {
+            running = false;
+            velocity = 0F;
+            listener.onAnimationFrame(this);
+            listener.onAnimationEnd(this);
+        } else {
+            listener.onAnimationFrame(this);
+            ticker.postFrame(this);
+        }
+    }
+
+    private void start(long durationMs) {
+        cancel();
+        durationNanos = (long) (durationMs * durationScale()) * NANOS_PER_MS;
+        startTimeNanos = -1;
+        lastFrameTimeNanos = -1;
+        velocity = 0F;
+        running = true;
+        apply(0F);
+        ticker.postFrame(this);
+    }
+
+    private void startSpring(float velocity) {
+        cancel();
+        this.velocity = velocity;
+        lastFrameTimeNanos = -1;
+        running = true;
+        applySpring(fromPosition);
+        ticker.postFrame(this);
+    }
+
+    /**
+     * Spring transitions have no clock based fraction, the text follows the toggle progress instead
+     */
+    private void applySpring(float position) {
+        float distance = toPosition - fromPosition;
+        fraction = distance == 0F
+                ? 1F
+                : Math.max(0F, Math.min(1F, (position - fromPosition) / distance));
+        this.position = position;
+        textColor = blendColors(fromColor, toColor, fraction);
+        textAlpha = transition ? Math.abs(1F - 2F * fraction) : 1F;
+        textOffset = lerp(fromOffset, toOffset, fraction);
+    }
+
+    private void apply(float progress) {
+        fraction = INTERPOLATOR.getInterpolation(progress);
+        float positionFraction = fraction;
+        if (bounce) {
+            // there and back again: first half goes to the peak, second half returns
+            positionFraction = fraction < 0.5F ? fraction * 2F : 2F - fraction * 2F;
+        }
+        position = lerp(fromPosition, toPosition, positionFraction);
+        textColor = blendColors(fromColor, toColor, fraction);
+        textAlpha = transition ? Math.abs(1F - 2F * fraction) : 1F;
+        textOffset = lerp(fromOffset, toOffset, fraction);
+    }
+
+    /**
+     * Respect the developer option / accessibility animator scale like {@link ValueAnimator} does
+     */
+    private static float durationScale() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            return ValueAnimator.getDurationScale();
+        }
+        return 1F;
+    }
+
+    static float lerp(float from, float to, float fraction) {
+        return from + (to - from) * fraction;
+    }
+
+    /**
+     * Blend two ARGB colors without boxing them like {@link android.animation.ArgbEvaluator} does.
+     */
+    static int blendColors(int from, int to, float fraction) {
+        int a = (int) lerp((from >>> 24) & 0xff, (to >>> 24) & 0xff, fraction);
+        int r = (int) lerp((from >> 16) & 0xff, (to >> 16) & 0xff, fraction);
+        int g = (int) lerp((from >> 8) & 0xff, (to >> 8) & 0xff, fraction);
+        int b = (int) lerp(from & 0xff, to & 0xff, fraction);
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+}
@@ -0,0 +1,100 @@
+package com.demoapp.swipedemo;
+
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+
+/**
+ * One frame callback for every running {@link SwipeFrameAnimator} of the process.
+ * However many buttons animate, the choreographer sees a single callback per frame,
+ * all of them advance with the same frame time and all their invalidations land before the same traversal.
+ * Must be used from the main thread.
+ */
+final class SwipeFrameTicker implements Choreographer.FrameCallback {
+
+    interface FrameObserver {
+        /**
+         * Called at the start of every frame that continues a run of animation frames
+         *
+         * @param gapNanos time since the previous frame of the run
+         */
+        void onFrameGap(long gapNanos);
+    }
+
+    private static SwipeFrameTicker instance;
+
+    static SwipeFrameTicker getInstance() {
+        if (instance == null) {
+            instance = new SwipeFrameTicker();
+        }
+        return instance;
+    }
+
+    private final Choreographer choreographer = Choreographer.getInstance();
+
+    /**
+     * Animators waiting for the next frame, and the ones of the frame being dispatched.
+     * The lists are swapped every frame, so ticking allocates nothing.
+     */
+    private ArrayList<SwipeFrameAnimator> pending = new ArrayList<>();
+    private ArrayList<SwipeFrameAnimator> dispatching = new ArrayList<>();
+    private boolean posted;
+
+    private FrameObserver frameObserver;
+
+    /**
+     * Time of the previous frame while animators keep running, -1 when the run of frames was broken
+     */
+    private long lastFrameTimeNanos = -1;
+
+    private SwipeFrameTicker() {
+    }
+
+    /**
+     * @param frameObserver observer of the frame gaps while animations run, e.g. {@link SwipeQualityGovernor}
+     */
+    void setFrameObserver(FrameObserver frameObserver) {
+        this.frameObserver = frameObserver;
+    }
+
+    /**
+     * Call the animator once on the next frame, like {@link Choreographer#postFrameCallback}
+     */
+    void postFrame(SwipeFrameAnimator animator) {
+        if (!pending.contains(animator)) {
+            pending.add(animator);
+        }
+        if (!posted) {
+            posted = true;
+            choreographer.postFrameCallback(this);
+        }
+    }
+
+    void removeFrame(SwipeFrameAnimator animator) {
+        pending.remove(animator);
+        if (pending.isEmpty() && posted) {
+            posted = false;
+            choreographer.removeFrameCallback(this);
+            lastFrameTimeNanos = -1;
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        posted = false;
+        if (frameObserver != null && lastFrameTimeNanos >= 0) {
+            frameObserver.onFrameGap(frameTimeNanos - lastFrameTimeNanos);
+        }
+        ArrayList<SwipeFrameAnimator> frame = pending;
+        pending = dispatching;
+        dispatching = frame;
+
+        // animators that keep running post themselves into the other list again
+        for (int i = 0; i < frame.size(); i++) {
+            frame.get(i).doFrame(frameTimeNanos);
+        }
+        frame.clear();
+        // a gap to a later frame only counts when the animations did not stop in between
+        lastFrameTimeNanos = pending.isEmpty() ? -1 : frameTimeNanos;
+    }
+}
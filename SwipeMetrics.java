@@ -0,0 +1,235 @@
+package com.demoapp.swipedemo;
+
+/**
+ * Timing of the gestures and animations of one {@link SwipebleButton}.
+ * A sample starts with a touch-down on the toggle or with the first frame of an animation
+ * and is reported when the toggle comes to rest. The same instance is reused for every report,
+ * so the values must be read in {@link Listener#onSwipeMetrics(SwipeMetrics)}.
+ * Only every n-th sample is recorded, see {@link #setSampleInterval(int)};
+ * the others cost one counter and a few flag checks.
+ * Times come from a {@link Clock}, so the recording can run on the JVM with a fake clock.
+ * Must be used from the main thread.
+ */
+final class SwipeMetrics {
+
+    interface Listener {
+        /**
+         * Called when a recorded sample is complete
+         */
+        void onSwipeMetrics(SwipeMetrics metrics);
+    }
+
+    interface Clock {
+        long nanoTime();
+    }
+
+    static final Clock SYSTEM_CLOCK = System::nanoTime;
+
+    /**
+     * Value of a time that was not measured in this sample
+     */
+    static final long NOT_MEASURED = -1L;
+
+    private static final long DEFAULT_FRAME_INTERVAL_NANOS = 16_666_667L;
+
+    private final Listener listener;
+    private Clock clock = SYSTEM_CLOCK;
+    private int sampleInterval = 1;
+    private long frameIntervalNanos = DEFAULT_FRAME_INTERVAL_NANOS;
+
+    private int sampleCount;
+
+    /**
+     * A sample is open, recorded or not
+     */
+    private boolean active;
+
+    /**
+     * The open sample is recorded
+     */
+    private boolean sampling;
+    private boolean moved;
+    private long touchDownNanos;
+    private long releaseNanos;
+    private long lastFrameNanos;
+    private long updateStateStartNanos;
+
+    private long touchToMoveNanos;
+    private long releaseToSettleNanos;
+    private int renderedFrames;
+    private int droppedFrames;
+    private boolean transition;
+    private long updateStateNanos;
+    private int updateStateCount;
+
+    SwipeMetrics(Listener listener) {
+        this.listener = listener;
+        reset();
+    }
+
+    /**
+     * @param sampleInterval record one of this many samples, 1 records all of them
+     */
+    void setSampleInterval(int sampleInterval) throws Throwable {
+        if (sampleInterval < 1) {
+            throw new Throwable("Illegal value argument. Value must be greater than 0.");
+        }
+        this.sampleInterval = sampleInterval;
+    }
+
+    void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * @param frameIntervalNanos frame interval of the display, a longer gap between frames counts as dropped frames
+     */
+    void setFrameInterval(long frameIntervalNanos) throws Throwable {
+        if (frameIntervalNanos <= 0) {
+            throw new Throwable("Illegal value argument. Value must be greater than 0.");
+        }
+        this.frameIntervalNanos = frameIntervalNanos;
+    }
+
+    /**
+     * @return time from the touch-down to the first toggle movement, {@link #NOT_MEASURED} without a drag
+     */
+    long getTouchToMoveNanos() {
+        return touchToMoveNanos;
+    }
+
+    /**
+     * @return time from the release to the toggle at rest, {@link #NOT_MEASURED} without a release
+     */
+    long getReleaseToSettleNanos() {
+        return releaseToSettleNanos;
+    }
+
+    int getRenderedFrames() {
+        return renderedFrames;
+    }
+
+    int getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    /**
+     * @return true when the sample ended with a state change animation
+     */
+    boolean isTransition() {
+        return transition;
+    }
+
+    /**
+     * @return time spent applying the state since the last report
+     */
+    long getUpdateStateNanos() {
+        return updateStateNanos;
+    }
+
+    int getUpdateStateCount() {
+        return updateStateCount;
+    }
+
+    void onTouchDown() {
+        // a new gesture replaces an unfinished sample
+        startSample();
+        if (sampling) {
+            touchDownNanos = clock.nanoTime();
+        }
+    }
+
+    void onToggleMove() {
+        if (sampling && !moved) {
+            moved = true;
+            if (touchDownNanos != NOT_MEASURED) {
+                touchToMoveNanos = clock.nanoTime() - touchDownNanos;
+            }
+        }
+    }
+
+    void onRelease() {
+        if (sampling) {
+            releaseNanos = clock.nanoTime();
+        }
+    }
+
+    /**
+     * @param frameTimeNanos vsync time of the frame, in the time base of {@link System#nanoTime()}
+     */
+    void onAnimationFrame(long frameTimeNanos) {
+        if (!active) {
+            startSample();
+        }
+        if (!sampling) {
+            return;
+        }
+        renderedFrames++;
+        if (lastFrameNanos != NOT_MEASURED) {
+            long missed = (frameTimeNanos - lastFrameNanos + frameIntervalNanos / 2) / frameIntervalNanos - 1;
+            if (missed > 0) {
+                droppedFrames += (int) missed;
+            }
+        }
+        lastFrameNanos = frameTimeNanos;
+    }
+
+    /**
+     * The toggle came to rest, completes the sample
+     *
+     * @param transition true when the state changed
+     */
+    void onSettled(boolean transition) {
+        if (sampling) {
+            if (releaseNanos != NOT_MEASURED) {
+                releaseToSettleNanos = clock.nanoTime() - releaseNanos;
+            }
+            this.transition = transition;
+            listener.onSwipeMetrics(this);
+            updateStateNanos = 0L;
+            updateStateCount = 0;
+        }
+        active = false;
+        reset();
+    }
+
+    /**
+     * The animation or gesture of the open sample was dropped without settling,
+     * the sample is discarded without a report
+     */
+    void onCancelled() {
+        active = false;
+        reset();
+    }
+
+    void onUpdateStateStart() {
+        updateStateStartNanos = clock.nanoTime();
+    }
+
+    void onUpdateStateEnd() {
+        updateStateNanos += clock.nanoTime() - updateStateStartNanos;
+        updateStateCount++;
+    }
+
+    private void startSample() {
+        reset();
+        active = true;
+        sampling = sampleCount++ % sampleInterval == 0;
+    }
+
+    /**
+     * Clear the values of the sample, the time spent applying the state is kept until it is reported
+     */
+    private void reset() {
+        sampling = false;
+        moved = false;
+        touchDownNanos = NOT_MEASURED;
+        releaseNanos = NOT_MEASURED;
+        lastFrameNanos = NOT_MEASURED;
+        touchToMoveNanos = NOT_MEASURED;
+        releaseToSettleNanos = NOT_MEASURED;
+        renderedFrames = 0;
+        droppedFrames = 0;
+        transition = false;
+    }
+}
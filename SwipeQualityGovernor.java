@@ -0,0 +1,216 @@
+package com.demoapp.swipedemo;
+
+import android.animation.ValueAnimator;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Build;
+import android.os.PowerManager;
+
+import com.demoapp.swipedemo.SwipebleButton.AnimationQuality;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Process-wide animation quality of the {@link SwipebleButton}s that opted into adaptive quality.
+ * The governor watches the frames of the shared {@link SwipeFrameTicker}: a window with many dropped frames
+ * degrades the quality by one step, clean windows or a calm period restore it step by step.
+ * Device state caps the quality on top of that: battery saver allows position-only animations at most,
+ * disabled animators or an animator duration scale of 0 switch instantly.
+ * Must be used from the main thread.
+ */
+final class SwipeQualityGovernor implements SwipeFrameTicker.FrameObserver {
+
+    interface Listener {
+        /**
+         * Called when the quality changed
+         *
+         * @param quality quality used by animations started from now on
+         */
+        void onQualityChanged(AnimationQuality quality);
+    }
+
+    private static final long DEFAULT_FRAME_INTERVAL_NANOS = 16_666_667L;
+
+    /**
+     * Frames, rendered and dropped, in one evaluation window
+     */
+    private static final int WINDOW_FRAMES = 30;
+
+    /**
+     * A window that drops more than this share of its frames degrades the quality
+     */
+    private static final float DEGRADE_DROP_RATIO = 0.25F;
+
+    /**
+     * A window that drops less than this share of its frames counts as clean
+     */
+    private static final float RESTORE_DROP_RATIO = 0.05F;
+
+    /**
+     * Clean windows in a row that restore one step, higher than one so the quality does not flap
+     */
+    private static final int RESTORE_WINDOWS = 3;
+
+    /**
+     * Time after the last degradation that restores one step.
+     * Degraded animations render fewer frames or none at all, so recovery cannot rely on clean windows alone.
+     */
+    private static final long RESTORE_DELAY_NANOS = 5_000_000_000L;
+
+    private static SwipeQualityGovernor instance;
+
+    /**
+     * @param context any context, the governor registers itself with the application for power save changes
+     */
+    static SwipeQualityGovernor getInstance(Context context) {
+        if (instance == null) {
+            Context appContext = context.getApplicationContext();
+            instance = new SwipeQualityGovernor((PowerManager) appContext.getSystemService(Context.POWER_SERVICE));
+            appContext.registerReceiver(instance.powerSaveReceiver,
+                    new IntentFilter(PowerManager.ACTION_POWER_SAVE_MODE_CHANGED));
+            SwipeFrameTicker.getInstance().setFrameObserver(instance);
+        }
+        return instance;
+    }
+
+    private final PowerManager powerManager;
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    private SwipeMetrics.Clock clock = SwipeMetrics.SYSTEM_CLOCK;
+    private long frameIntervalNanos = DEFAULT_FRAME_INTERVAL_NANOS;
+
+    private final BroadcastReceiver powerSaveReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            isPowerSaveMode = powerManager != null && powerManager.isPowerSaveMode();
+            update();
+        }
+    };
+
+    private boolean isPowerSaveMode;
+
+    /**
+     * Quality the frame drops allow, before the device state caps it
+     */
+    private AnimationQuality loadQuality = AnimationQuality.FULL;
+    private AnimationQuality quality;
+    private long degradeTimeNanos;
+
+    private int windowFrames;
+    private int windowDroppedFrames;
+    private int cleanWindows;
+
+    private SwipeQualityGovernor(PowerManager powerManager) {
+        this.powerManager = powerManager;
+        isPowerSaveMode = powerManager != null && powerManager.isPowerSaveMode();
+        quality = computeQuality();
+    }
+
+    void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    void setClock(SwipeMetrics.Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * @param frameIntervalNanos frame interval of the display, a longer gap between frames counts as dropped frames
+     */
+    void setFrameInterval(long frameIntervalNanos) throws Throwable {
+        if (frameIntervalNanos <= 0) {
+            throw new Throwable("Illegal value argument. Value must be greater than 0.");
+        }
+        this.frameIntervalNanos = frameIntervalNanos;
+    }
+
+    /**
+     * Quality for an animation that starts now.
+     * Also picks up changes of the animator settings, which send no broadcast.
+     */
+    AnimationQuality getQuality() {
+        if (loadQuality != AnimationQuality.FULL
+                && clock.nanoTime() - degradeTimeNanos >= RESTORE_DELAY_NANOS) {
+            restoreStep();
+        }
+        update();
+        return quality;
+    }
+
+    @Override
+    public void onFrameGap(long gapNanos) {
+        long missed = (gapNanos + frameIntervalNanos / 2) / frameIntervalNanos - 1;
+        if (missed > 0) {
+            windowDroppedFrames += (int) missed;
+        }
+        windowFrames += 1 + Math.max(0L, missed);
+        if (windowFrames < WINDOW_FRAMES) {
+            return;
+        }
+
+        float dropRatio = (float) windowDroppedFrames / windowFrames;
+        windowFrames = 0;
+        windowDroppedFrames = 0;
+        if (dropRatio > DEGRADE_DROP_RATIO) {
+            cleanWindows = 0;
+            degradeStep();
+        } else if (dropRatio < RESTORE_DROP_RATIO && loadQuality != AnimationQuality.FULL) {
+            if (++cleanWindows >= RESTORE_WINDOWS) {
+                restoreStep();
+            }
+        } else {
+            cleanWindows = 0;
+        }
+        update();
+    }
+
+    private void degradeStep() {
+        if (loadQuality != AnimationQuality.INSTANT) {
+            loadQuality = AnimationQuality.values()[loadQuality.ordinal() + 1];
+        }
+        degradeTimeNanos = clock.nanoTime();
+    }
+
+    private void restoreStep() {
+        loadQuality = AnimationQuality.values()[loadQuality.ordinal() - 1];
+        cleanWindows = 0;
+        // the next step up waits for another calm period
+        degradeTimeNanos = clock.nanoTime();
+    }
+
+    /**
+     * The lowest of the quality the load allows and the caps of the device state
+     */
+    private AnimationQuality computeQuality() {
+        if (!areAnimatorsEnabled()) {
+            return AnimationQuality.INSTANT;
+        }
+        if (isPowerSaveMode && loadQuality == AnimationQuality.FULL) {
+            return AnimationQuality.POSITION_ONLY;
+        }
+        return loadQuality;
+    }
+
+    private void update() {
+        AnimationQuality newQuality = computeQuality();
+        if (newQuality == quality) {
+            return;
+        }
+        quality = newQuality;
+        for (Listener listener : listeners) {
+            listener.onQualityChanged(newQuality);
+        }
+    }
+
+    private static boolean areAnimatorsEnabled() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            return ValueAnimator.areAnimatorsEnabled() && ValueAnimator.getDurationScale() > 0F;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,151 @@
+package com.demoapp.swipedemo;
+
+/**
+ * Framework-free core of the {@link SwipebleButton} gesture: geometry, drag, thresholds and the state decisions.
+ * It works on plain coordinates and velocities, holds no Android types and allocates nothing per event,
+ * so it can be tested and benchmarked on the JVM.
+ * Coordinates are toggle coordinates along the track, 0 is the unchecked end.
+ */
+final class SwipeStateMachine {
+
+    /**
+     * What the toggle does after it was released
+     */
+    enum Release {
+        /**
+         * Change the state to checked
+         */
+        ANIMATE_TO_END,
+        /**
+         * Change the state to unchecked
+         */
+        ANIMATE_TO_START,
+        /**
+         * Stay checked and go back to the end
+         */
+        RETURN_TO_END,
+        /**
+         * Stay unchecked and go back to the start
+         */
+        RETURN_TO_START
+    }
+
+    private int height;
+    private int trackLength;
+    private float trackTop;
+    private int toggleSize;
+
+    private float thresholdEnd = 0.5F;
+    private float thresholdStart = 0.5F;
+    private float minFlingVelocity;
+
+    /**
+     * Thresholds in px along the track, recomputed when the geometry or the thresholds change
+     */
+    private float thresholdEndPx;
+    private float thresholdStartPx;
+
+    /**
+     * @param height      height of the button
+     * @param trackLength length of the track the toggle moves along
+     * @param trackTop    coordinate of the track start
+     * @param toggleSize  size of the toggle along the track
+     */
+    void setGeometry(int height, int trackLength, float trackTop, int toggleSize) {
+        this.height = height;
+        this.trackLength = trackLength;
+        this.trackTop = trackTop;
+        this.toggleSize = toggleSize;
+        updateThresholdPx();
+    }
+
+    /**
+     * @param thresholdEnd   part of the track an unchecked toggle must pass to become checked
+     * @param thresholdStart part of the track a checked toggle must stay below to become unchecked
+     */
+    void setThresholds(float thresholdEnd, float thresholdStart) {
+        this.thresholdEnd = thresholdEnd;
+        this.thresholdStart = thresholdStart;
+        updateThresholdPx();
+    }
+
+    /**
+     * @param minFlingVelocity slowest release in px/s that counts as a fling
+     */
+    void setMinFlingVelocity(float minFlingVelocity) {
+        this.minFlingVelocity = minFlingVelocity;
+    }
+
+    int getTrackLength() {
+        return trackLength;
+    }
+
+    int getToggleSize() {
+        return toggleSize;
+    }
+
+    /**
+     * @return toggle coordinate in checked state
+     */
+    int getToggleTravel() {
+        return trackLength - toggleSize;
+    }
+
+    /**
+     * Where the toggle goes while it is dragged: it is centered under the finger
+     * as long as it stays inside the button.
+     *
+     * @param toggleY current toggle coordinate
+     * @param touchY  finger coordinate relative to the toggle
+     * @return new toggle coordinate, {@code toggleY} when the toggle does not move
+     */
+    float drag(float toggleY, float touchY) {
+        float newCoordinates = toggleY + touchY;
+        float halfToggle = (float) toggleSize / 2;
+
+        if (toggleY >= 0 && newCoordinates + halfToggle < height) {
+            if (toggleY + halfToggle < newCoordinates || newCoordinates - halfToggle > trackTop) {
+                return newCoordinates - halfToggle;
+            }
+        }
+        return toggleY;
+    }
+
+    /**
+     * Decide how the toggle comes to rest after a release.
+     *
+     * @param checked       current state
+     * @param toggleY       toggle coordinate at the release
+     * @param velocity      release velocity in px/s
+     * @param flingEnabled  true when a fast release decides the state by its direction
+     */
+    Release release(boolean checked, float toggleY, float velocity, boolean flingEnabled) {
+        if (flingEnabled && Math.abs(velocity) >= minFlingVelocity) {
+            boolean toEnd = velocity > 0;
+            if (toEnd == checked) {
+                return toEnd ? Release.RETURN_TO_END : Release.RETURN_TO_START;
+            }
+            return toEnd ? Release.ANIMATE_TO_END : Release.ANIMATE_TO_START;
+        }
+
+        if (checked) {
+            return toggleY < thresholdStartPx ? Release.ANIMATE_TO_START : Release.RETURN_TO_END;
+        }
+        return toggleY > thresholdEndPx ? Release.ANIMATE_TO_END : Release.RETURN_TO_START;
+    }
+
+    /**
+     * @param checked current state
+     * @return coordinate a click bounces the toggle to, half a toggle towards the other end
+     */
+    float clickPeak(boolean checked) {
+        return checked
+                ? getToggleTravel() - (toggleSize / 2)
+                : (float) (toggleSize / 2);
+    }
+
+    private void updateThresholdPx() {
+        thresholdEndPx = trackLength * thresholdEnd;
+        thresholdStartPx = trackLength * thresholdStart;
+    }
+}
@@ -0,0 +1,92 @@
+package com.demoapp.swipedemo;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Stream of the state changes committed by {@link SwipebleButton}.
+ * Every observer gets the changes on its own executor. While a delivery is queued or running,
+ * further changes are conflated: the observer only sees the latest state once the executor gets to it.
+ * Deliveries to one observer never overlap, even on a thread pool.
+ * States are published from the main thread, observers may subscribe and cancel from any thread.
+ */
+final class SwipeStateStream {
+
+    interface Observer {
+        /**
+         * Called on the executor of the subscription
+         *
+         * @param checked latest committed state
+         */
+        void onStateChanged(boolean checked);
+    }
+
+    private final CopyOnWriteArrayList<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param executor executor the observer is called on, {@code Runnable::run} calls it right away
+     * @return subscription that stops the delivery when it is cancelled
+     */
+    Subscription subscribe(Executor executor, Observer observer) {
+        Subscription subscription = new Subscription(executor, observer);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    void publish(boolean checked) {
+        // the iterator works on a snapshot, subscriptions cancelled meanwhile from another thread are still safe
+        for (Subscription subscription : subscriptions) {
+            subscription.publish(checked);
+        }
+    }
+
+    /**
+     * Delivery of the stream to one observer
+     */
+    final class Subscription implements Runnable {
+
+        private final Executor executor;
+        private final Observer observer;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean latest;
+        private volatile boolean dirty;
+        private volatile boolean cancelled;
+
+        private Subscription(Executor executor, Observer observer) {
+            this.executor = executor;
+            this.observer = observer;
+        }
+
+        /**
+         * Stop the delivery, a queued delivery is dropped
+         */
+        void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+        }
+
+        private void publish(boolean checked) {
+            latest = checked;
+            dirty = true;
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                dirty = false;
+                if (!cancelled) {
+                    observer.onStateChanged(latest);
+                }
+                scheduled.set(false);
+                // a state published during the delivery is picked up here, unless a new delivery took it
+                if (!dirty || !scheduled.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -1,23 +1,28 @@
 package com.demoapp.swipedemo;
 
-import android.animation.Animator;
-import android.animation.AnimatorListenerAdapter;
-import android.animation.AnimatorSet;
-import android.animation.ArgbEvaluator;
-import android.animation.ValueAnimator;
 import android.content.Context;
-import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Color;
 import android.graphics.drawable.Drawable;
-import android.graphics.drawable.TransitionDrawable;
+import android.os.Build;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.text.StaticLayout;
+import android.text.TextPaint;
 import android.util.AttributeSet;
 import android.view.LayoutInflater;
 import android.view.MotionEvent;
+import android.view.VelocityTracker;
 import android.view.View;
-import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.ViewConfiguration;
 import android.widget.RelativeLayout;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.widget.AppCompatImageView;
-import androidx.core.content.ContextCompat;
+
+import java.util.concurrent.Executor;
 
 public class SwipebleButton extends RelativeLayout {
 
@@ -31,114 +36,418 @@ public class SwipebleButton extends RelativeLayout {
     private int uncheckedTextColor;
     private Drawable checkedIcon;
     private Drawable uncheckedIcon;
+
+    /**
+     * Resources the icons were loaded from, the key of {@link ThumbIconCache}.
+     * 0 for icons set through the setters, they are not cached.
+     */
+    private int checkedIconResId;
+    private int uncheckedIconResId;
     private Drawable uncheckedToggleBackground;
     private Drawable checkedToggleBackground;
     private Drawable uncheckedBackground;
     private Drawable checkedBackground;
     private float textSize;
 
+    /**
+     * Backgrounds of the track and of the toggle.
+     * Both hold the checked and the unchecked drawable and crossfade by the toggle position.
+     */
+    private CrossfadeDrawable trackCrossfade;
+    private CrossfadeDrawable toggleCrossfade;
+
+    /**
+     * How the button is rendered
+     */
+    public enum RenderMode {
+        /**
+         * Track and toggle are child views inflated from {@code R.layout.button_swipe}
+         */
+        VIEWS,
+        /**
+         * No child views, track, toggle and icon are drawn by this view.
+         * Cheaper to create, measure and lay out in long forms and lists.
+         */
+        FLAT
+    }
+
+    private static RenderMode defaultRenderMode = RenderMode.VIEWS;
+
+    /**
+     * Render mode of buttons inflated from XML.
+     *
+     * @param renderMode render mode used by buttons created after this call
+     */
+    public static void setDefaultRenderMode(RenderMode renderMode) {
+        defaultRenderMode = renderMode;
+    }
+
+    private RenderMode renderMode = defaultRenderMode;
+
+    private static boolean isIconCacheEnabled = true;
+
+    /**
+     * Draw the toggle icons from the shared bitmaps of {@link ThumbIconCache} instead of
+     * rasterizing them in every button.
+     *
+     * @param iconCacheEnabled used for icons set after this call
+     */
+    public static void setIconCacheEnabled(boolean iconCacheEnabled) {
+        isIconCacheEnabled = iconCacheEnabled;
+    }
+
+    /**
+     * Current toggle coordinate
+     */
+    private float toggleY;
+
+    /**
+     * Icon of the toggle, holds both state icons and crossfades by the toggle position like the backgrounds.
+     * It is set on the toggle once, so a state change never swaps drawables or triggers a layout pass.
+     */
+    private CrossfadeDrawable iconCrossfade;
+
+    /**
+     * The state icons were replaced and are moved into {@link #iconCrossfade} on the next state update
+     */
+    private boolean iconsChanged;
+
+    /**
+     * Drawables of the style that are not created yet
+     */
+    private static final int CHECKED_ICON = 1;
+    private static final int CHECKED_TOGGLE_BACKGROUND = 1 << 1;
+    private static final int CHECKED_BACKGROUND = 1 << 2;
+    private static final int UNCHECKED_ICON = 1 << 3;
+    private static final int UNCHECKED_TOGGLE_BACKGROUND = 1 << 4;
+    private static final int UNCHECKED_BACKGROUND = 1 << 5;
+    private static final int CHECKED_RESOURCES = CHECKED_ICON | CHECKED_TOGGLE_BACKGROUND | CHECKED_BACKGROUND;
+    private static final int UNCHECKED_RESOURCES = UNCHECKED_ICON | UNCHECKED_TOGGLE_BACKGROUND | UNCHECKED_BACKGROUND;
+
+    private int pendingResources;
+
+    /**
+     * Style the pending drawables are created from, released once all of them are loaded
+     */
+    private SwipeButtonStyle resourceStyle;
+
+    private boolean isPrefetchScheduled;
+
+    /**
+     * Loads the drawables of the other state once the main thread is idle
+     */
+    private final MessageQueue.IdleHandler prefetchIdleHandler = () -> {
+        isPrefetchScheduled = false;
+        loadStateResources(!this.isChecked);
+        return false;
+    };
+
+    /**
+     * Gesture arbitration: a touch on the toggle is pending until it moves past the touch slop.
+     * Along the track it becomes a drag, across it the gesture is left to the parent.
+     */
+    private static final int GESTURE_NONE = 0;
+    private static final int GESTURE_PENDING = 1;
+    private static final int GESTURE_DRAGGING = 2;
+    private static final int GESTURE_IGNORED = 3;
+
+    private int gestureState = GESTURE_NONE;
+    private int touchSlop;
+
+    /**
+     * Slop of a drag along the track. It is below the touch slop, so a drag is claimed before
+     * a scrolling parent without nested scrolling, e.g. {@code RecyclerView}, intercepts it.
+     */
+    private int claimSlop;
+    private float downX;
+    private float downY;
+    private float lastRawY;
+
+    /**
+     * Precomputed layouts of both label texts, see {@link LabelLayoutCache}
+     */
+    private final LabelLayoutCache labelLayouts = new LabelLayoutCache(this::invalidate);
+
+    /**
+     * Label offset from the track center in toggle sizes,
+     * the label is centered in the part of the track the toggle does not cover
+     */
+    private static final float LABEL_OFFSET_UNCHECKED = 0.5F;
+    private static final float LABEL_OFFSET_CHECKED = -0.5F;
+
+    /**
+     * Label as it is drawn now: which text, its color, alpha and offset.
+     * The offset is applied as a translation while drawing, animating it never requests a layout.
+     */
+    private boolean labelChecked;
+    private int labelColor;
+    private float labelAlpha = 1F;
+    private float labelOffset = LABEL_OFFSET_UNCHECKED;
+
     public SwipebleButton(Context context) {
         super(context);
+        this.context = context;
+        init(0, 0);
     }
 
     public SwipebleButton(Context context, AttributeSet attrs) {
         super(context, attrs);
         this.context = context;
         this.attrs = attrs;
-        init();
+        init(0, 0);
+    }
+
+    public SwipebleButton(Context context, AttributeSet attrs, RenderMode renderMode) {
+        super(context, attrs);
+        this.context = context;
+        this.attrs = attrs;
+        this.renderMode = renderMode;
+        init(0, 0);
     }
 
     public SwipebleButton(Context context, AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
+        this.context = context;
+        this.attrs = attrs;
+        init(defStyleAttr, 0);
     }
 
     public SwipebleButton(Context context, AttributeSet attrs, int defStyleAttr, int defStyleRes) {
         super(context, attrs, defStyleAttr, defStyleRes);
+        this.context = context;
+        this.attrs = attrs;
+        init(defStyleAttr, defStyleRes);
     }
 
-    private void init() {
-        View view = LayoutInflater.from(context).inflate(R.layout.button_swipe, this, true);
-        slidingButtonIv = view.findViewById(R.id.slidingButtonIv);
-        buttonSwipeableView = view.findViewById(R.id.buttonSwipeableView);
+    private void init(int defStyleAttr, int defStyleRes) {
+        if (renderMode == RenderMode.VIEWS) {
+            LayoutInflater inflater = LayoutInflater.from(context);
+            if (inflater.getContext() != context) {
+                // e.g. the wrapper of SwipebleButtonPool, the children must hold it and not its base context
+                inflater = inflater.cloneInContext(context);
+            }
+            View view = inflater.inflate(R.layout.button_swipe, this, true);
+            slidingButtonIv = view.findViewById(R.id.slidingButtonIv);
+            buttonSwipeableView = view.findViewById(R.id.buttonSwipeableView);
+        } else {
+            setWillNotDraw(false);
+        }
 
-        /**
-         * Text that displaying when button is checked
-         */
-        checkedText = context.getString(R.string.checked_text);
+        ViewConfiguration viewConfiguration = ViewConfiguration.get(context);
+        touchSlop = viewConfiguration.getScaledTouchSlop();
+        claimSlop = touchSlop / 2;
+        minFlingVelocity = viewConfiguration.getScaledMinimumFlingVelocity();
+        stateMachine.setMinFlingVelocity(minFlingVelocity);
+        maxFlingVelocity = viewConfiguration.getScaledMaximumFlingVelocity();
+        frameAnimator.setSpring(springStiffness, springDampingRatio);
+        setNestedScrollingEnabled(true);
 
         /**
-         * Text that displaying when button is unchecked
+         * Resolved style, shared with other buttons that use the same theme and attributes
          */
-        uncheckedText = context.getString(R.string.unchecked_text);
+        SwipeButtonStyle style = SwipeButtonStyle.obtain(context, attrs, defStyleAttr, defStyleRes);
+
+        checkedText = style.checkedText;
+        uncheckedText = style.uncheckedText;
+        checkedTextColor = style.checkedTextColor;
+        uncheckedTextColor = style.uncheckedTextColor;
+        textSize = style.textSize;
+
+        labelLayouts.setCheckedText(checkedText);
+        labelLayouts.setUncheckedText(uncheckedText);
+        labelLayouts.setTextSize(textSize);
+
+        trackCrossfade = new CrossfadeDrawable(null, null);
+        toggleCrossfade = new CrossfadeDrawable(null, null);
+        iconCrossfade = new CrossfadeDrawable(null, null);
+        if (renderMode == RenderMode.VIEWS) {
+            buttonSwipeableView.setBackground(trackCrossfade);
+            slidingButtonIv.setBackground(toggleCrossfade);
+            slidingButtonIv.setImageDrawable(iconCrossfade);
+        } else {
+            trackCrossfade.setCallback(this);
+            toggleCrossfade.setCallback(this);
+            iconCrossfade.setCallback(this);
+        }
 
-        /**
-         * Color of the text that displays when button is checked
-         */
-        checkedTextColor = ContextCompat.getColor(context, android.R.color.white);
+        // only the drawables of the initial state, the other state is loaded on demand
+        resourceStyle = style;
+        pendingResources = CHECKED_RESOURCES | UNCHECKED_RESOURCES;
+        loadStateResources(style.isChecked);
 
-        /**
-         * Color of the text that displays when button is unchecked
-         */
-        uncheckedTextColor = ContextCompat.getColor(context, android.R.color.black);
+        beginEdit();
+        try {
+            applyStyle(style);
+        } catch (Throwable throwable) {
+            throwable.printStackTrace();
+        }
+        requestStateUpdate();
+        applyEdit();
 
-        /**
-         * Icon that displays when button is checked
-         */
-        checkedIcon = ContextCompat.getDrawable(context, R.drawable.ic_stop);
+        updateEnableState();
+    }
 
-        /**
-         * Icon that displays when button is unchecked
-         */
-        uncheckedIcon = ContextCompat.getDrawable(context, R.drawable.ic_play);
+    static final long ANIMATION_DURATION = 200;
+
+    /**
+     * Duration of the click bounce, the framework default that was used before
+     */
+    private static final long CLICK_ANIMATION_DURATION = 300;
 
+    private static final float DEFAULT_SPRING_STIFFNESS = 1500F;
+
+    private static final float DEFAULT_SPRING_DAMPING_RATIO = 1F;
+
+    /**
+     * How the toggle comes to rest after it was released or the state was changed
+     */
+    public enum SettleMode {
         /**
-         * Background of swipeable button that displays when button is unchecked
+         * Fixed duration animation, see {@link #setAnimationDuration(long)}
          */
-        uncheckedToggleBackground = ContextCompat.getDrawable(context, R.drawable.shape_unchecked_toggle);
-
+        DURATION,
         /**
-         * Background of swipeable button that displays when button is checked
+         * Spring that starts with the release velocity, a fling commits the state in its direction
          */
-        checkedToggleBackground = ContextCompat.getDrawable(context, R.drawable.shape_checked_toggle);
+        SPRING
+    }
 
+    /**
+     * How much of the state change animation is played, see {@link #setAdaptiveQualityEnabled(boolean)}
+     */
+    public enum AnimationQuality {
         /**
-         * Background that displays when button is unchecked
+         * Toggle, backgrounds, icon and label all animate
          */
-        uncheckedBackground = ContextCompat.getDrawable(context, R.drawable.shape_scrolling_view_unchecked);
-
+        FULL,
         /**
-         * Background that displays when button is checked
+         * Only the toggle moves, backgrounds, icon and label switch when it comes to rest
          */
-        checkedBackground = ContextCompat.getDrawable(context, R.drawable.shape_scrolling_view_checked);
-
+        POSITION_ONLY,
         /**
-         * The size of displaying text
+         * The state switches on the next frame without animation
          */
-        textSize = context.getResources().getDimensionPixelSize(R.dimen.default_text_size);
+        INSTANT
+    }
+
+    private enum StateChangeDirection {
+        CHECKED_UNCHECKED,
+        UNCHECKED_CHECKED
+    }
 
-        if (attrs != null) {
-            try {
-                parseAttr(attrs);
-            } catch (Throwable throwable) {
-                throwable.printStackTrace();
+    /**
+     * Direction of the running state change animation
+     */
+    private StateChangeDirection toggleDirection;
+
+    private final SwipeFrameAnimator.Listener frameListener = new SwipeFrameAnimator.Listener() {
+        @Override
+        public void onAnimationFrame(SwipeFrameAnimator animator) {
+            if (metrics != null) {
+                metrics.onAnimationFrame(animator.getFrameTimeNanos());
+            }
+            moveToggle(animator.getPosition());
+            if (animator.isTransition() && motionQuality == AnimationQuality.FULL) {
+                boolean toChecked = toggleDirection == StateChangeDirection.UNCHECKED_CHECKED;
+                // fade through: the old text fades out, the new one fades in from the middle
+                labelChecked = animator.getFraction() < 0.5F ? !toChecked : toChecked;
+                labelColor = animator.getTextColor();
+                labelAlpha = animator.getTextAlpha();
+                labelOffset = animator.getTextOffset();
+                invalidate();
             }
         }
 
-        updateState();
-        updateEnableState();
-    }
+        @Override
+        public void onAnimationEnd(SwipeFrameAnimator animator) {
+            if (animator.isTransition()) {
+                onToggleAnimationEnd(toggleDirection);
+            } else {
+                // a settle can follow an interrupted transition, the label shows the committed state again
+                restoreLabelStyle();
+            }
+            if (metrics != null) {
+                metrics.onSettled(animator.isTransition());
+            }
+        }
+    };
 
-    private static final long ANIMATION_DURATION = 200;
+    /**
+     * Drives every toggle animation of this button, see {@link SwipeFrameAnimator}
+     */
+    private final SwipeFrameAnimator frameAnimator = new SwipeFrameAnimator(frameListener);
 
-    private enum StateChangeDirection {
-        CHECKED_UNCHECKED,
-        UNCHECKED_CHECKED
+    /**
+     * Committed state changes, see {@link #observeState(Executor, SwipeStateStream.Observer)}
+     */
+    private final SwipeStateStream stateStream = new SwipeStateStream();
+
+    private SwipeStateStream.Subscription onSwipedActionSubscription;
+
+    /**
+     * Optimistic commit, see {@link #setOnCommitListener(SwipeCommit.Listener)}
+     */
+    private SwipeCommit.Listener onCommitListener;
+
+    /**
+     * Incremented on every state change, a failed commit only rolls back the change it belongs to
+     */
+    private int commitGeneration;
+
+    /**
+     * Optional timing instrumentation, see {@link SwipeMetrics}
+     */
+    private SwipeMetrics metrics;
+
+    /**
+     * @param metrics metrics to record gestures and animations into, null turns the recording off
+     */
+    void setMetrics(SwipeMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Observe the state changes made by the user. Changes set through {@link #setChecked(boolean)}
+     * or {@link #bind(boolean)} are not published.
+     *
+     * @param executor executor the observer is called on, rapid changes are conflated to the latest state
+     * @param observer observer of the committed state
+     * @return subscription to cancel when the observer is not needed anymore
+     */
+    public SwipeStateStream.Subscription observeState(Executor executor, SwipeStateStream.Observer observer) {
+        return stateStream.subscribe(executor, observer);
     }
 
-    private OnSwipedActionListener onSwipedActionListener;
+    /**
+     * Commit state changes optimistically: the change is committed and published as soon as the release
+     * decides it, while the toggle animates. The listener starts the action and reports its result
+     * to the {@link SwipeCommit}, a failure animates the button back to the previous state.
+     *
+     * @param onCommitListener listener that starts the action, null commits at the end of the animation
+     */
+    public void setOnCommitListener(SwipeCommit.Listener onCommitListener) {
+        this.onCommitListener = onCommitListener;
+    }
 
+    /**
+     * The listener is called on the main thread as soon as a state change is committed.
+     * Use {@link #observeState(Executor, SwipeStateStream.Observer)} to handle changes off the main thread.
+     */
     public void setOnSwipedActionListener(OnSwipedActionListener onSwipedActionListener) {
-        this.onSwipedActionListener = onSwipedActionListener;
+        if (onSwipedActionSubscription != null) {
+            onSwipedActionSubscription.cancel();
+            onSwipedActionSubscription = null;
+        }
+        if (onSwipedActionListener != null) {
+            onSwipedActionSubscription = stateStream.subscribe(Runnable::run, checked -> {
+                if (checked) {
+                    onSwipedActionListener.onSwipedOnListener();
+                } else {
+                    onSwipedActionListener.onSwipedOffListener();
+                }
+                onSwipedActionListener.onSwipedListener();
+            });
+        }
     }
 
     interface OnSwipedActionListener {
@@ -154,9 +463,160 @@ public class SwipebleButton extends RelativeLayout {
      */
     boolean isChecked = false;
 
+    /**
+     * Set the state without animation.
+     * It is applied right away when the button is laid out, otherwise once on its next layout.
+     */
     public void setChecked(boolean checked) {
+        // a state change in flight would commit a stale state when it ends
+        interruptAnimation();
+        commitGeneration++;
         isChecked = checked;
-        getRootView().post(this::updateState);
+        requestStateUpdate();
+    }
+
+    /**
+     * Show the state of a new item in a reused view, e.g. a {@code RecyclerView} row.
+     * The running animation and the gesture in progress of the previous item are dropped,
+     * the toggle jumps to the bound state and no listener is called.
+     *
+     * @param checked state of the bound item
+     */
+    public void bind(boolean checked) {
+        if (gestureState != GESTURE_NONE) {
+            // the rest of the gesture is ignored until the next touch
+            gestureState = GESTURE_IGNORED;
+            endGesture();
+        }
+        releaseVelocity = 0F;
+        setChecked(checked);
+    }
+
+    @Override
+    protected Parcelable onSaveInstanceState() {
+        SavedState state = new SavedState(super.onSaveInstanceState());
+        state.isChecked = this.isChecked;
+        return state;
+    }
+
+    @Override
+    protected void onRestoreInstanceState(Parcelable state) {
+        if (!(state instanceof SavedState)) {
+            super.onRestoreInstanceState(state);
+            return;
+        }
+        SavedState savedState = (SavedState) state;
+        super.onRestoreInstanceState(savedState.getSuperState());
+        bind(savedState.isChecked);
+    }
+
+    /**
+     * State of the button that survives recreation
+     */
+    static class SavedState extends BaseSavedState {
+
+        boolean isChecked;
+
+        SavedState(Parcelable superState) {
+            super(superState);
+        }
+
+        private SavedState(Parcel source) {
+            super(source);
+            isChecked = source.readInt() != 0;
+        }
+
+        @Override
+        public void writeToParcel(Parcel out, int flags) {
+            super.writeToParcel(out, flags);
+            out.writeInt(isChecked ? 1 : 0);
+        }
+
+        public static final Parcelable.Creator<SavedState> CREATOR = new Parcelable.Creator<SavedState>() {
+            @Override
+            public SavedState createFromParcel(Parcel source) {
+                return new SavedState(source);
+            }
+
+            @Override
+            public SavedState[] newArray(int size) {
+                return new SavedState[size];
+            }
+        };
+    }
+
+    /**
+     * Block of configuration calls, see {@link #configure(Configurator)}
+     */
+    public interface Configurator {
+        void configure(SwipebleButton button) throws Throwable;
+    }
+
+    /**
+     * Depth of nested {@link #beginEdit()} calls
+     */
+    private int editDepth;
+
+    /**
+     * A setter was called during an edit, the state has to be applied when the edit ends
+     */
+    private boolean stateUpdatePending;
+
+    /**
+     * The state was changed before the first layout, it is applied once the geometry is known
+     */
+    private boolean layoutStateUpdatePending;
+
+    /**
+     * Start a batch of configuration changes.
+     * Setters called until the matching {@link #applyEdit()} only store their values,
+     * the style is applied once at the end. Edits can be nested.
+     */
+    public void beginEdit() {
+        editDepth++;
+    }
+
+    /**
+     * End a batch of configuration changes started by {@link #beginEdit()}
+     * and apply all of them in one pass.
+     */
+    public void applyEdit() {
+        if (editDepth == 0) {
+            return;
+        }
+        editDepth--;
+        if (editDepth == 0 && stateUpdatePending) {
+            stateUpdatePending = false;
+            requestStateUpdate();
+        }
+    }
+
+    /**
+     * Apply several configuration changes in one pass.
+     *
+     * @param configurator block that calls the setters of this button
+     */
+    public void configure(Configurator configurator) throws Throwable {
+        beginEdit();
+        try {
+            configurator.configure(this);
+        } finally {
+            applyEdit();
+        }
+    }
+
+    /**
+     * Apply the state now, at the end of the current edit or on the next layout.
+     * Repeated requests before that collapse into one update.
+     */
+    private void requestStateUpdate() {
+        if (editDepth > 0) {
+            stateUpdatePending = true;
+        } else if (!isLaidOut()) {
+            layoutStateUpdatePending = true;
+        } else {
+            updateState();
+        }
     }
 
     /**
@@ -166,7 +626,7 @@ public class SwipebleButton extends RelativeLayout {
 
     public void setClickToSwipeEnable(boolean clickToSwipeEnable) {
         isClickToSwipeEnable = clickToSwipeEnable;
-        updateState();
+        requestStateUpdate();
     }
 
     /**
@@ -181,7 +641,8 @@ public class SwipebleButton extends RelativeLayout {
             throw new Throwable("Illegal value argument. Available values from 0 to 1");
         }
         this.swipeProgressToFinish = swipeProgressToFinish;
-        updateState();
+        stateMachine.setThresholds(this.swipeProgressToFinish, this.swipeProgressToStart);
+        requestStateUpdate();
     }
 
     /**
@@ -196,80 +657,109 @@ public class SwipebleButton extends RelativeLayout {
             throw new Throwable("Illegal value argument. Available values from 0 to 1");
         }
         this.swipeProgressToStart = 1 - swipeProgressToStart;
-        updateState();
+        stateMachine.setThresholds(this.swipeProgressToFinish, this.swipeProgressToStart);
+        requestStateUpdate();
     }
 
     public void setCheckedText(String checkedText) {
         this.checkedText = checkedText;
-        updateState();
+        labelLayouts.setCheckedText(checkedText);
+        requestStateUpdate();
     }
 
     public void setUncheckedText(String uncheckedText) {
         this.uncheckedText = uncheckedText;
-        updateState();
+        labelLayouts.setUncheckedText(uncheckedText);
+        requestStateUpdate();
     }
 
 
 
     public void setCheckedTextColor(int checkedTextColor) {
         this.checkedTextColor = checkedTextColor;
-        updateState();
+        requestStateUpdate();
     }
 
 
 
     public void setUncheckedTextColor(int uncheckedTextColor) {
         this.uncheckedTextColor = uncheckedTextColor;
-        updateState();
+        requestStateUpdate();
     }
 
 
 
     public void setCheckedIcon(Drawable checkedIcon) {
         this.checkedIcon = checkedIcon;
-        updateState();
+        checkedIconResId = 0;
+        pendingResources &= ~CHECKED_ICON;
+        iconsChanged = true;
+        requestStateUpdate();
     }
 
 
 
     public void setUncheckedIcon(Drawable uncheckedIcon) {
         this.uncheckedIcon = uncheckedIcon;
-        updateState();
+        uncheckedIconResId = 0;
+        pendingResources &= ~UNCHECKED_ICON;
+        iconsChanged = true;
+        requestStateUpdate();
     }
 
 
 
     public void setUncheckedToggleBackground(Drawable uncheckedToggleBackground) {
         this.uncheckedToggleBackground = uncheckedToggleBackground;
-        updateState();
+        pendingResources &= ~UNCHECKED_TOGGLE_BACKGROUND;
+        toggleCrossfade.setDrawables(uncheckedToggleBackground, checkedToggleBackground);
+        requestStateUpdate();
     }
 
 
 
     public void setCheckedToggleBackground(Drawable checkedToggleBackground) {
         this.checkedToggleBackground = checkedToggleBackground;
-        updateState();
+        pendingResources &= ~CHECKED_TOGGLE_BACKGROUND;
+        toggleCrossfade.setDrawables(uncheckedToggleBackground, checkedToggleBackground);
+        requestStateUpdate();
     }
 
 
 
     public void setUncheckedBackground(Drawable uncheckedBackground) {
         this.uncheckedBackground = uncheckedBackground;
-        updateState();
+        pendingResources &= ~UNCHECKED_BACKGROUND;
+        trackCrossfade.setDrawables(uncheckedBackground, checkedBackground);
+        requestStateUpdate();
     }
 
 
 
     public void setCheckedBackground(Drawable checkedBackground) {
         this.checkedBackground = checkedBackground;
-        updateState();
+        pendingResources &= ~CHECKED_BACKGROUND;
+        trackCrossfade.setDrawables(uncheckedBackground, checkedBackground);
+        requestStateUpdate();
     }
 
 
 
     public void setTextSize(float textSize) {
         this.textSize = textSize;
-        updateState();
+        labelLayouts.setTextSize(textSize);
+        requestStateUpdate();
+    }
+
+    /**
+     * Build the label text layouts on the given executor instead of the main thread.
+     * Until they are ready the label is not drawn.
+     *
+     * @param executor executor for layout building, null builds them on the main thread
+     */
+    public void setLabelLayoutExecutor(Executor executor) {
+        labelLayouts.setExecutor(executor);
+        labelLayouts.prefetch();
     }
 
     /**
@@ -297,48 +787,285 @@ public class SwipebleButton extends RelativeLayout {
         this.animationDuration = animationDuration;
     }
 
-    OnTouchListener onTouchListener = (view, event) -> {
-        switch (event.getAction()) {
-            case MotionEvent.ACTION_DOWN:
-                return true;
-            case MotionEvent.ACTION_MOVE:
-                onButtonMove(event);
-                this.getParent().requestDisallowInterceptTouchEvent(true);
-                return true;
-
-            case MotionEvent.ACTION_UP:
-                onButtonMoved();
-                return true;
-        }
-        return view.onTouchEvent(event);
-    };
+    /**
+     * Settle mode of the toggle
+     */
+    SettleMode settleMode = SettleMode.DURATION;
 
-    private final OnClickListener onClickListener = view -> animateClick();
+    public void setSettleMode(SettleMode settleMode) {
+        this.settleMode = settleMode;
+    }
 
     /**
-     * Setting current state of button with animation
-     *
-     * @param isChecked set button state
+     * Stiffness of the settle spring.
+     * Value must be greater than 0.
      */
-    void setCheckedAnimated(boolean isChecked) {
-        if (isChecked) {
-            animateToggleToEnd();
-        } else {
-            animateToggleToStart();
+    float springStiffness = DEFAULT_SPRING_STIFFNESS;
+
+    public void setSpringStiffness(float springStiffness) throws Throwable {
+        if (springStiffness <= 0) {
+            throw new Throwable("Illegal value argument. Value must be greater than 0.");
         }
+        this.springStiffness = springStiffness;
+        frameAnimator.setSpring(springStiffness, springDampingRatio);
     }
 
     /**
-     * Setting initial toggle coordinate in checked state
+     * Damping ratio of the settle spring.
+     * 1 comes to rest without bouncing, smaller values bounce.
+     * Value must be greater than 0.
+     */
+    float springDampingRatio = DEFAULT_SPRING_DAMPING_RATIO;
+
+    public void setSpringDampingRatio(float springDampingRatio) throws Throwable {
+        if (springDampingRatio <= 0) {
+            throw new Throwable("Illegal value argument. Value must be greater than 0.");
+        }
+        this.springDampingRatio = springDampingRatio;
+        frameAnimator.setSpring(springStiffness, springDampingRatio);
+    }
+
+    /**
+     * Let the quality governor pick the quality of every animation, see {@link #setAdaptiveQualityEnabled(boolean)}
+     */
+    boolean isAdaptiveQualityEnabled = false;
+
+    /**
+     * Degrade the animations when frames drop, in battery saver or with animations turned off,
+     * and restore them when conditions recover. The quality is decided by the process-wide
+     * {@link SwipeQualityGovernor}, which also reports its changes to listeners.
+     */
+    public void setAdaptiveQualityEnabled(boolean adaptiveQualityEnabled) {
+        isAdaptiveQualityEnabled = adaptiveQualityEnabled;
+    }
+
+    /**
+     * @return quality the next animation of this button is played with
+     */
+    public AnimationQuality getAnimationQuality() {
+        return isAdaptiveQualityEnabled
+                ? SwipeQualityGovernor.getInstance(getContext()).getQuality()
+                : AnimationQuality.FULL;
+    }
+
+    /**
+     * Quality of the running or last animation, taken when it starts
+     */
+    private AnimationQuality motionQuality = AnimationQuality.FULL;
+
+    /**
+     * Drag, threshold and fling decisions, see {@link SwipeStateMachine}
+     */
+    private final SwipeStateMachine stateMachine = new SwipeStateMachine();
+
+    /**
+     * Look ahead of the finger, see {@link #setTouchPredictionEnabled(boolean)}
+     */
+    boolean isTouchPredictionEnabled = false;
+
+    /**
+     * Move the dragged toggle to where the finger will be one frame later,
+     * extrapolated linearly from the last two touch samples. Hides part of the input latency.
+     */
+    public void setTouchPredictionEnabled(boolean touchPredictionEnabled) {
+        isTouchPredictionEnabled = touchPredictionEnabled;
+    }
+
+    /**
+     * How far ahead of the last touch sample the prediction looks
+     */
+    private static final float TOUCH_PREDICTION_MS = 8F;
+
+    /**
+     * Last touch sample of the drag in button coordinates and the finger velocity in px/ms
+     */
+    private float fingerY;
+    private long fingerTimeMs = -1;
+    private float touchVelocity;
+
+    private VelocityTracker velocityTracker;
+    private int minFlingVelocity;
+    private int maxFlingVelocity;
+
+    /**
+     * Velocity of the last release in px/s, consumed by the next settle
+     */
+    private float releaseVelocity;
+
+    @Override
+    public boolean onInterceptTouchEvent(MotionEvent event) {
+        // the inflated toggle gets taps, this view takes over once a drag along the track is claimed
+        return renderMode == RenderMode.VIEWS && onGesture(event);
+    }
+
+    /**
+     * Arbitrate a gesture that started on the toggle.
+     * A touch-down on the toggle starts a vertical nested scroll, which keeps {@code ScrollView}
+     * and {@code NestedScrollView} from intercepting the gesture. Nothing moves until the slop is crossed.
+     * Then a move along the track claims the gesture with a single disallow call,
+     * a move across it leaves the gesture to the parent.
+     *
+     * @param event touch event in the coordinates of this button
+     * @return true while the toggle is dragged
+     */
+    private boolean onGesture(MotionEvent event) {
+        int action = event.getActionMasked();
+        if (action == MotionEvent.ACTION_DOWN) {
+            gestureState = GESTURE_NONE;
+            if (!this.isEnabled || event.getY() < toggleY || event.getY() >= toggleY + getToggleSize()) {
+                return false;
+            }
+            gestureState = GESTURE_PENDING;
+            downX = event.getX();
+            downY = event.getY();
+            lastRawY = event.getRawY();
+            trackVelocity(event);
+            interruptAnimation();
+            if (metrics != null) {
+                metrics.onTouchDown();
+            }
+            // nested scrolling parents check this before they intercept the first move
+            startNestedScroll(SCROLL_AXIS_VERTICAL);
+            resetFingerTracking();
+            // the drag will crossfade to the other state
+            loadStateResources(!this.isChecked);
+            return false;
+        }
+        if (gestureState == GESTURE_NONE || gestureState == GESTURE_IGNORED) {
+            return false;
+        }
+        trackVelocity(event);
+
+        switch (action) {
+            case MotionEvent.ACTION_MOVE:
+                if (gestureState == GESTURE_PENDING && !claimGesture(event)) {
+                    return false;
+                }
+                onToggleDrag(event);
+                return true;
+            case MotionEvent.ACTION_UP:
+                if (metrics != null) {
+                    metrics.onRelease();
+                }
+                boolean dragging = gestureState == GESTURE_DRAGGING;
+                if (dragging || !isToggleAtRest()) {
+                    // a tap on the resting toggle is a click, otherwise the toggle settles from where it is
+                    onButtonMoved();
+                }
+                gestureState = GESTURE_NONE;
+                endGesture();
+                return dragging;
+            case MotionEvent.ACTION_CANCEL:
+                dragging = gestureState == GESTURE_DRAGGING;
+                gestureState = GESTURE_NONE;
+                returnToggleToState();
+                endGesture();
+                return dragging;
+        }
+        return gestureState == GESTURE_DRAGGING;
+    }
+
+    /**
+     * @return true when the pending gesture became a drag
+     */
+    private boolean claimGesture(MotionEvent event) {
+        float dx = Math.abs(event.getX() - downX);
+        float dy = Math.abs(event.getY() - downY);
+        if (dy > claimSlop && dy >= dx) {
+            gestureState = GESTURE_DRAGGING;
+            if (getParent() != null) {
+                getParent().requestDisallowInterceptTouchEvent(true);
+            }
+            return true;
+        }
+        if (dx > touchSlop) {
+            // endGesture() also stops the nested scroll, the parent may intercept again
+            gestureState = GESTURE_IGNORED;
+            returnToggleToState();
+            endGesture();
+        }
+        return false;
+    }
+
+    /**
+     * Move the toggle with the finger. The part of the move the toggle cannot follow
+     * at the ends of the track is offered to a nested scrolling parent.
+     */
+    private void onToggleDrag(MotionEvent event) {
+        float oldY = toggleY;
+        onButtonMove(event);
+        if (metrics != null) {
+            metrics.onToggleMove();
+        }
+        float rawY = event.getRawY();
+        float unconsumed = (rawY - lastRawY) - (toggleY - oldY);
+        lastRawY = rawY;
+        if ((toggleY <= 0F || toggleY >= getToggleTravel()) && Math.abs(unconsumed) >= 1F) {
+            dispatchNestedScroll(0, 0, 0, (int) -unconsumed, null);
+        }
+    }
+
+    /**
+     * Call after the animation the gesture ends with was started
+     */
+    private void endGesture() {
+        recycleVelocityTracker();
+        stopNestedScroll();
+        if (metrics != null && !frameAnimator.isRunning()) {
+            // nothing settles, e.g. a tap on the resting toggle
+            metrics.onCancelled();
+        }
+    }
+
+    /**
+     * @return true when the toggle is at the position of the committed state
+     */
+    private boolean isToggleAtRest() {
+        return toggleY == (this.isChecked ? getToggleTravel() : 0F);
+    }
+
+    /**
+     * Bring the toggle back to the committed state after a gesture was cancelled
+     */
+    private void returnToggleToState() {
+        releaseVelocity = 0F;
+        if (isToggleAtRest()) {
+            return;
+        }
+        if (this.isChecked) {
+            returnToggleToEnd();
+        } else {
+            returnToggleToStart();
+        }
+    }
+
+    private final OnClickListener onClickListener = view -> animateClick();
+
+    /**
+     * Setting current state of button with animation
+     *
+     * @param isChecked set button state
+     */
+    void setCheckedAnimated(boolean isChecked) {
+        if (isChecked) {
+            animateToggleToEnd();
+        } else {
+            animateToggleToStart();
+        }
+    }
+
+    /**
+     * Setting initial toggle coordinate in checked state
      */
     private void updateEnableState() {
+        if (renderMode == RenderMode.FLAT) {
+            return;
+        }
         if (this.isEnabled) {
-            slidingButtonIv.setOnTouchListener(onTouchListener);
             slidingButtonIv.setOnClickListener(onClickListener);
             buttonSwipeableView.setOnClickListener(onClickListener);
         } else {
             slidingButtonIv.setOnClickListener(null);
-            slidingButtonIv.setOnTouchListener(null);
             buttonSwipeableView.setOnClickListener(null);
         }
         buttonSwipeableView.setEnabled(this.isEnabled);
@@ -351,14 +1078,23 @@ public class SwipebleButton extends RelativeLayout {
      * Call when attribute change.
      */
     private void updateState() {
+        if (metrics != null) {
+            metrics.onUpdateStateStart();
+        }
+        loadStateResources(this.isChecked);
+        if (iconsChanged) {
+            iconsChanged = false;
+            setIcons(uncheckedIcon, checkedIcon);
+        }
         if (this.isChecked) {
             setActivatedStyle();
             setToggleToEnd();
-            setTextStartTextPadding();
         } else {
             setDeactivatedStyle();
             setToggleToStart();
-            setTextEndTextPadding();
+        }
+        if (metrics != null) {
+            metrics.onUpdateStateEnd();
         }
     }
 
@@ -366,180 +1102,86 @@ public class SwipebleButton extends RelativeLayout {
      * Setting initial toggle coordinate in unchecked state
      */
     private void setToggleToEnd() {
-        slidingButtonIv.setY((buttonSwipeableView.getHeight() - slidingButtonIv.getHeight()));
+        moveToggle(getToggleTravel());
     }
 
     /**
      * Setting initial toggle coordinate in checked state
      */
     private void setToggleToStart() {
-        slidingButtonIv.setY(0F);
-    }
-
-    /**
-     * Setting initial padding text in unchecked state
-     */
-    private void setTextStartTextPadding() {
-        //buttonSwipeableTv.setPadding(0, 0, slidingButtonIv.height, 0)
-    }
-
-    /**
-     * Setting initial padding text in checked state
-     */
-    private void setTextEndTextPadding() {
-        //buttonSwipeableTv.setPadding(slidingButtonIv.height, 0, 0, 0)
+        moveToggle(0F);
     }
 
     /**
      * Animation when toggle returns to start position without changing state
      */
     private void returnToggleToStart() {
-        AnimatorSet animatorSet = new AnimatorSet();
-        ValueAnimator positionAnimator = ValueAnimator.ofFloat(slidingButtonIv.getY(), 0F);
-        positionAnimator.setDuration(animationDuration);
-        positionAnimator.addUpdateListener(valueAnimator -> slidingButtonIv.setY((Float) positionAnimator.getAnimatedValue()));
-        animatorSet.play(positionAnimator);
-        animatorSet.start();
+        settleToggle(0F);
     }
 
     /**
      * Animation when toggle returns to end position without changing state
      */
     private void returnToggleToEnd() {
-        AnimatorSet animatorSet = new AnimatorSet();
-        ValueAnimator positionAnimator = ValueAnimator.ofFloat(
-                slidingButtonIv.getY(),
-                (buttonSwipeableView.getHeight() - slidingButtonIv.getHeight())
-        );
-        positionAnimator.setDuration(animationDuration);
-        positionAnimator.addUpdateListener(valueAnimator -> {
-            slidingButtonIv.setY((Float) positionAnimator.getAnimatedValue());
-        });
-        animatorSet.play(positionAnimator);
-        animatorSet.start();
+        settleToggle(getToggleTravel());
+    }
+
+    /**
+     * Move the toggle to the target coordinate without changing state
+     *
+     * @param toY target toggle coordinate
+     */
+    private void settleToggle(float toY) {
+        motionQuality = getAnimationQuality();
+        if (motionQuality == AnimationQuality.INSTANT) {
+            frameAnimator.animatePosition(toggleY, toY, false, 0L);
+        } else if (settleMode == SettleMode.SPRING) {
+            frameAnimator.setPositionBounds(0F, getToggleTravel());
+            frameAnimator.springPosition(toggleY, toY, takeStartVelocity());
+        } else {
+            frameAnimator.animatePosition(toggleY, toY, false, animationDuration);
+        }
     }
 
     /**
      * Move the button to the start with the state changing (with animation)
      */
     private void animateToggleToStart() {
-        AnimatorSet animatorSet = new AnimatorSet();
-
-        animateBackgroundChange(StateChangeDirection.CHECKED_UNCHECKED);
-        animateToggleChange(StateChangeDirection.CHECKED_UNCHECKED);
-
-        ValueAnimator colorAnimation =
-                ValueAnimator.ofObject(new ArgbEvaluator(), checkedTextColor, uncheckedTextColor);
-        colorAnimation.setDuration(animationDuration);
-        //colorAnimation.addUpdateListener { animator -> buttonSwipeableTv.setTextColor(animator.animatedValue as Int) }
-
-        ValueAnimator positionAnimator = ValueAnimator.ofFloat(slidingButtonIv.getY(), 0F);
-        positionAnimator.setDuration(animationDuration);
-        positionAnimator.addUpdateListener(valueAnimator -> {
-            slidingButtonIv.setY((Float) positionAnimator.getAnimatedValue());
-        });
-
-        ValueAnimator paddingAnimation = ValueAnimator.ofInt(0, slidingButtonIv.getHeight());
-        paddingAnimation.setDuration(animationDuration);
-        paddingAnimation.addUpdateListener(valueAnimator -> {
-            //buttonSwipeableTv.setPadding(it.animatedValue as Int, 0, 0, 0)
-        });
-
-        ValueAnimator alphaAnimation = ValueAnimator.ofFloat(1F, 0F, 1F);
-        alphaAnimation.setDuration(animationDuration);
-        alphaAnimation.addUpdateListener(valueAnimator -> {
-//            if (it.animatedValue as Float <= 0.3) {
-//                if (buttonSwipeableTv.text != uncheckedText) {
-//                    buttonSwipeableTv.text = uncheckedText
-//                }
-//            }
-//            buttonSwipeableTv.alpha = alphaAnimation.animatedValue as Float
-        });
-
-        animatorSet.addListener(new AnimatorListenerAdapter() {
-            @Override
-            public void onAnimationEnd(Animator animation) {
-                super.onAnimationEnd(animation);
-                setDeactivatedStyle();
-
-                if (onSwipedActionListener != null) {
-                    onSwipedActionListener.onSwipedOffListener();
-                    onSwipedActionListener.onSwipedListener();
-                }
-                setChecked(false);
-            }
-        });
-
-        positionAnimator.setInterpolator(new AccelerateDecelerateInterpolator());
-        animatorSet.playTogether(positionAnimator, colorAnimation, alphaAnimation, paddingAnimation);
-        animatorSet.start();
+        loadStateResources(false);
+        startToggleAnimation(
+                StateChangeDirection.CHECKED_UNCHECKED,
+                toggleY,
+                0F,
+                checkedTextColor,
+                uncheckedTextColor
+        );
     }
 
     /**
      * Move the button to the end with the state changing (with animation)
      */
     private void animateToggleToEnd() {
-        AnimatorSet animatorSet = new AnimatorSet();
-
-        animateBackgroundChange(StateChangeDirection.UNCHECKED_CHECKED);
-        animateToggleChange(StateChangeDirection.UNCHECKED_CHECKED);
-
-        ValueAnimator colorAnimation =
-                ValueAnimator.ofObject(new ArgbEvaluator(), uncheckedTextColor, checkedTextColor);
-        colorAnimation.setDuration(animationDuration);
-        //colorAnimation.addUpdateListener { animator -> buttonSwipeableTv.setTextColor(animator.animatedValue as Int) }
-
-        ValueAnimator positionAnimator = ValueAnimator.ofFloat(
-                slidingButtonIv.getY(),
-                (buttonSwipeableView.getHeight() - slidingButtonIv.getHeight())
+        loadStateResources(true);
+        startToggleAnimation(
+                StateChangeDirection.UNCHECKED_CHECKED,
+                toggleY,
+                getToggleTravel(),
+                uncheckedTextColor,
+                checkedTextColor
         );
-        positionAnimator.setDuration(animationDuration);
-        positionAnimator.addUpdateListener(valueAnimator -> {
-            slidingButtonIv.setY((Float) positionAnimator.getAnimatedValue());
-        });
-
-        ValueAnimator alphaAnimation = ValueAnimator.ofFloat(1F, 0F, 1F);
-        alphaAnimation.setDuration(animationDuration);
-//        alphaAnimation.addUpdateListener {
-//            if (it.animatedValue as Float <= 0.3) {
-//                if (buttonSwipeableTv.text != checkedText) {
-//                    buttonSwipeableTv.text = checkedText
-//                }
-//            }
-//            buttonSwipeableTv.alpha = alphaAnimation.animatedValue as Float
-//        }
-
-        ValueAnimator paddingAnimation = ValueAnimator.ofInt(0, slidingButtonIv.getHeight());
-        paddingAnimation.setDuration(animationDuration);
-//        paddingAnimation.addUpdateListener {
-//            buttonSwipeableTv.setPadding(0, 0, it.animatedValue as Int, 0)
-//        }
-
-        animatorSet.addListener(new AnimatorListenerAdapter() {
-            @Override
-            public void onAnimationEnd(Animator animation) {
-                super.onAnimationEnd(animation);
-                setActivatedStyle();
-
-                if (onSwipedActionListener != null) {
-                    onSwipedActionListener.onSwipedOnListener();
-                    onSwipedActionListener.onSwipedListener();
-                }
-
-                setChecked(true);
-            }
-        });
-
-        positionAnimator.setInterpolator(new AccelerateDecelerateInterpolator());
-        animatorSet.playTogether(positionAnimator, colorAnimation, alphaAnimation, paddingAnimation);
-        animatorSet.start();
     }
 
     /**
      * Toggle click animation
      */
     private void animateClick() {
-        if (this.isClickToSwipeEnable) {
+        // the running animation owns the toggle, a tap does not restart it from the rest position
+        if (this.isClickToSwipeEnable && !frameAnimator.isRunning()) {
+            motionQuality = getAnimationQuality();
+            if (motionQuality == AnimationQuality.INSTANT) {
+                // the bounce is only a hint, there is nothing to switch
+                return;
+            }
             if (this.isChecked) {
                 animateClickToActivate();
             } else {
@@ -552,237 +1194,642 @@ public class SwipebleButton extends RelativeLayout {
      * An animation that is invoked when a user tries to click on an unchecked button
      */
     private void animateClickToActivate() {
-        AnimatorSet animatorSet = new AnimatorSet();
-
-        ValueAnimator positionAnimator =
-                ValueAnimator.ofFloat(
-                        (float) (buttonSwipeableView.getHeight() - slidingButtonIv.getHeight()),
-                        (float) ((buttonSwipeableView.getHeight() - slidingButtonIv.getHeight()) - (slidingButtonIv.getHeight() / 2)),
-                        (float) (buttonSwipeableView.getHeight() - slidingButtonIv.getHeight())
-                );
-        positionAnimator.addUpdateListener(valueAnimator -> slidingButtonIv.setY((Float) positionAnimator.getAnimatedValue()));
-        animatorSet.play(positionAnimator);
-        animatorSet.start();
+        float end = stateMachine.getToggleTravel();
+        float peak = stateMachine.clickPeak(true);
+        frameAnimator.animatePosition(end, peak, true, CLICK_ANIMATION_DURATION);
     }
 
     /**
      * An animation that is invoked when a user tries to click on an checked button
      */
     private void animateClickToDeactivate() {
-        AnimatorSet animatorSet = new AnimatorSet();
+        float peak = stateMachine.clickPeak(false);
+        frameAnimator.animatePosition(0F, peak, true, CLICK_ANIMATION_DURATION);
+    }
+
+    /**
+     * Start the state change animation from the current toggle coordinate.
+     *
+     * @param direction direction of the state change
+     * @param fromY     current toggle coordinate
+     * @param toY       final toggle coordinate
+     * @param fromColor text color of the current state
+     * @param toColor   text color of the new state
+     */
+    private void startToggleAnimation(StateChangeDirection direction, float fromY, float toY, int fromColor, int toColor) {
+        toggleDirection = direction;
+        float targetLabelOffset = direction == StateChangeDirection.UNCHECKED_CHECKED
+                ? LABEL_OFFSET_CHECKED
+                : LABEL_OFFSET_UNCHECKED;
+        motionQuality = getAnimationQuality();
+        if (motionQuality == AnimationQuality.INSTANT) {
+            frameAnimator.animateTransition(
+                    fromY, toY,
+                    fromColor, toColor,
+                    labelOffset, targetLabelOffset,
+                    0L
+            );
+        } else if (settleMode == SettleMode.SPRING) {
+            frameAnimator.setPositionBounds(0F, getToggleTravel());
+            frameAnimator.springTransition(
+                    fromY, toY, takeStartVelocity(),
+                    fromColor, toColor,
+                    labelOffset, targetLabelOffset
+            );
+        } else {
+            frameAnimator.animateTransition(
+                    fromY, toY,
+                    fromColor, toColor,
+                    labelOffset, targetLabelOffset,
+                    animationDuration
+            );
+        }
+    }
 
-        ValueAnimator positionAnimator =
-                ValueAnimator.ofFloat(
-                        0F,
-                        (float) (slidingButtonIv.getHeight() / 2),
-                        0F
-                );
-        positionAnimator.addUpdateListener(valueAnimator -> {
-            slidingButtonIv.setY((Float) positionAnimator.getAnimatedValue());
-        });
-        animatorSet.play(positionAnimator);
-        animatorSet.start();
+    /**
+     * Stop the running animation because the user touched the toggle again.
+     * The toggle stays where it is, an interrupted state change is not committed.
+     */
+    private void interruptAnimation() {
+        removeCallbacks(delayedStateAnimation);
+        boolean transition = frameAnimator.isRunning() && frameAnimator.isTransition();
+        // setChecked() from the end of a finished animation drops nothing, its sample still settles
+        boolean dropped = frameAnimator.isRunning() || isStateAnimationDelayed;
+        frameAnimator.cancel();
+        if (metrics != null && dropped) {
+            metrics.onCancelled();
+        }
+        if (transition) {
+            // the label must not stay half faded between both texts
+            restoreLabelStyle();
+        }
+        if (isStateAnimationDelayed) {
+            isStateAnimationDelayed = false;
+            // the toggle still shows the old state, a release from there would undo the committed one
+            updateState();
+        }
     }
 
     /**
-     * Animation change button background.
+     * Feed the velocity tracker.
+     * The toggle moves under the finger, so events are tracked in the coordinates of this button.
      *
-     * @param direction set animation direction
+     * @param event touch event in the coordinates of this button
+     */
+    private void trackVelocity(MotionEvent event) {
+        if (velocityTracker == null) {
+            velocityTracker = VelocityTracker.obtain();
+        } else if (event.getAction() == MotionEvent.ACTION_DOWN) {
+            velocityTracker.clear();
+        }
+        velocityTracker.addMovement(event);
+    }
+
+    private void recycleVelocityTracker() {
+        if (velocityTracker != null) {
+            velocityTracker.recycle();
+            velocityTracker = null;
+        }
+    }
+
+    /**
+     * Velocity a new toggle animation starts with: the fling velocity after a release,
+     * otherwise the velocity of the animation it replaces, so a retarget keeps the motion.
      */
-    private void animateBackgroundChange(StateChangeDirection direction) {
-        Drawable[] backgrounds = new Drawable[2];
+    private float takeStartVelocity() {
+        float velocity = releaseVelocity != 0F || !frameAnimator.isRunning()
+                ? releaseVelocity
+                : frameAnimator.getVelocity();
+        releaseVelocity = 0F;
+        return velocity;
+    }
 
-        if (direction == StateChangeDirection.UNCHECKED_CHECKED) {
-            backgrounds[0] = uncheckedBackground;
-            backgrounds[1] = checkedBackground;
+    /**
+     * Commit the state change once the toggle animation finished.
+     *
+     * @param direction direction of the finished state change
+     */
+    private void onToggleAnimationEnd(StateChangeDirection direction) {
+        boolean checked = direction == StateChangeDirection.UNCHECKED_CHECKED;
+        if (checked == this.isChecked) {
+            // committed optimistically or retargeted back to the committed state, nothing changed
+            if (checked) {
+                setActivatedStyle();
+            } else {
+                setDeactivatedStyle();
+            }
+            return;
+        }
+        if (checked) {
+            setActivatedStyle();
+        } else {
+            setDeactivatedStyle();
+        }
+        stateStream.publish(checked);
+        setChecked(checked);
+    }
+
+    /**
+     * Move the toggle and let both backgrounds crossfade by its position,
+     * so the background follows the finger during a drag as well as during animations.
+     *
+     * @param y new toggle coordinate
+     */
+    private void moveToggle(float y) {
+        toggleY = y;
+        if (renderMode == RenderMode.FLAT) {
+            // the track crossfades with the move, the whole view is drawn again anyway
+            invalidate();
         } else {
-            backgrounds[0] = checkedBackground;
-            backgrounds[1] = uncheckedBackground;
+            slidingButtonIv.setY(y);
         }
 
-        TransitionDrawable backgroundTransition = new TransitionDrawable(backgrounds);
-        buttonSwipeableView.setBackground(backgroundTransition);
-        backgroundTransition.startTransition((int) animationDuration);
+        int travel = getToggleTravel();
+        // a position-only animation leaves the crossfades alone until its last frame
+        if (travel > 0 && (motionQuality == AnimationQuality.FULL || !frameAnimator.isRunning())) {
+            trackCrossfade.setProgress(y / travel);
+            toggleCrossfade.setProgress(y / travel);
+            iconCrossfade.setProgress(y / travel);
+        }
     }
 
     /**
-     * Animation change toggle background.
+     * @return length of the track the toggle moves along, as of the last layout
+     */
+    private int getTrackLength() {
+        return stateMachine.getTrackLength();
+    }
+
+    /**
+     * @return size of the toggle along the track, as of the last layout
+     */
+    private int getToggleSize() {
+        return stateMachine.getToggleSize();
+    }
+
+    /**
+     * @return toggle coordinate in checked state
+     */
+    private int getToggleTravel() {
+        return stateMachine.getToggleTravel();
+    }
+
+    /**
+     * Cache the geometry once per size change, the touch and animation paths never ask the views for it.
+     * In {@link RenderMode#FLAT} the toggle is square.
+     */
+    private void syncGeometry() {
+        if (renderMode == RenderMode.FLAT) {
+            stateMachine.setGeometry(getHeight(), getHeight(), 0F, getWidth());
+        } else {
+            stateMachine.setGeometry(getHeight(), buttonSwipeableView.getHeight(),
+                    buttonSwipeableView.getY(), slidingButtonIv.getHeight());
+        }
+    }
+
+    /**
+     * Create the style drawables of one state that were not created yet.
+     * Drawables replaced through the setters are never loaded from the style.
      *
-     * @param direction set animation direction
+     * @param checked state to load the drawables for
      */
-    private void animateToggleChange(StateChangeDirection direction) {
-        Drawable[] backgrounds = new Drawable[2];
+    private void loadStateResources(boolean checked) {
+        int pending = pendingResources & (checked ? CHECKED_RESOURCES : UNCHECKED_RESOURCES);
+        if (pending == 0) {
+            return;
+        }
+        pendingResources &= ~pending;
+
+        if ((pending & CHECKED_ICON) != 0) {
+            checkedIcon = resourceStyle.checkedIcon.newDrawable(context);
+            checkedIconResId = resourceStyle.checkedIcon.getResId();
+        }
+        if ((pending & CHECKED_TOGGLE_BACKGROUND) != 0) {
+            checkedToggleBackground = resourceStyle.checkedToggleBackground.newDrawable(context);
+        }
+        if ((pending & CHECKED_BACKGROUND) != 0) {
+            checkedBackground = resourceStyle.checkedBackground.newDrawable(context);
+        }
+        if ((pending & UNCHECKED_ICON) != 0) {
+            uncheckedIcon = resourceStyle.uncheckedIcon.newDrawable(context);
+            uncheckedIconResId = resourceStyle.uncheckedIcon.getResId();
+        }
+        if ((pending & UNCHECKED_TOGGLE_BACKGROUND) != 0) {
+            uncheckedToggleBackground = resourceStyle.uncheckedToggleBackground.newDrawable(context);
+        }
+        if ((pending & UNCHECKED_BACKGROUND) != 0) {
+            uncheckedBackground = resourceStyle.uncheckedBackground.newDrawable(context);
+        }
+        if (pendingResources == 0) {
+            resourceStyle = null;
+        }
 
-        if (direction == StateChangeDirection.UNCHECKED_CHECKED) {
-            backgrounds[0] = uncheckedToggleBackground;
-            backgrounds[1] = checkedToggleBackground;
+        trackCrossfade.setDrawables(uncheckedBackground, checkedBackground);
+        toggleCrossfade.setDrawables(uncheckedToggleBackground, checkedToggleBackground);
+        setIcons(uncheckedIcon, checkedIcon);
+    }
+
+    @Override
+    public void onVisibilityAggregated(boolean isVisible) {
+        super.onVisibilityAggregated(isVisible);
+        if (isVisible) {
+            schedulePrefetch();
+        }
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        // onVisibilityAggregated() is only called from API 24
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N && isShown()) {
+            schedulePrefetch();
+        }
+    }
+
+    @Override
+    protected void onVisibilityChanged(@NonNull View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N && isShown()) {
+            schedulePrefetch();
+        }
+    }
+
+    /**
+     * Load the drawables of the other state once the main thread is idle, the button became visible
+     */
+    private void schedulePrefetch() {
+        if (pendingResources != 0 && !isPrefetchScheduled) {
+            isPrefetchScheduled = true;
+            Looper.myQueue().addIdleHandler(prefetchIdleHandler);
+        }
+    }
+
+    /**
+     * Replace the state icons inside the icon crossfade.
+     * Only here the intrinsic size of the toggle image may change and request a layout.
+     */
+    private void setIcons(Drawable uncheckedIcon, Drawable checkedIcon) {
+        int oldWidth = iconCrossfade.getIntrinsicWidth();
+        int oldHeight = iconCrossfade.getIntrinsicHeight();
+        if (isIconCacheEnabled) {
+            ThumbIconCache iconCache = ThumbIconCache.getInstance(context);
+            uncheckedIcon = iconCache.obtain(context.getResources(), uncheckedIcon, uncheckedIconResId,
+                    ThumbIconCache.NO_TINT);
+            checkedIcon = iconCache.obtain(context.getResources(), checkedIcon, checkedIconResId,
+                    ThumbIconCache.NO_TINT);
+        }
+        iconCrossfade.setDrawables(uncheckedIcon, checkedIcon);
+        if (oldWidth == iconCrossfade.getIntrinsicWidth() && oldHeight == iconCrossfade.getIntrinsicHeight()) {
+            return;
+        }
+        if (renderMode == RenderMode.VIEWS) {
+            // let the image view pick up a new intrinsic size
+            slidingButtonIv.setImageDrawable(null);
+            slidingButtonIv.setImageDrawable(iconCrossfade);
         } else {
-            backgrounds[0] = checkedToggleBackground;
-            backgrounds[1] = uncheckedToggleBackground;
+            layoutToggleIcon();
+        }
+    }
+
+    /**
+     * Center the icon in the toggle and scale it down when it does not fit,
+     * like the inflated toggle image view does.
+     */
+    private void layoutToggleIcon() {
+        int size = getToggleSize();
+        int width = iconCrossfade.getIntrinsicWidth() > 0 ? iconCrossfade.getIntrinsicWidth() : size;
+        int height = iconCrossfade.getIntrinsicHeight() > 0 ? iconCrossfade.getIntrinsicHeight() : size;
+        if (width > size || height > size) {
+            float scale = Math.min((float) size / width, (float) size / height);
+            width = (int) (width * scale);
+            height = (int) (height * scale);
+        }
+        int left = (size - width) / 2;
+        int top = (size - height) / 2;
+        iconCrossfade.setBounds(left, top, left + width, top + height);
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        if (renderMode == RenderMode.VIEWS) {
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+            return;
+        }
+        setMeasuredDimension(
+                resolveSize(Math.max(getSuggestedMinimumWidth(), toggleCrossfade.getIntrinsicWidth()), widthMeasureSpec),
+                resolveSize(Math.max(getSuggestedMinimumHeight(), trackCrossfade.getIntrinsicHeight()), heightMeasureSpec)
+        );
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        if (renderMode == RenderMode.FLAT) {
+            syncGeometry();
+            trackCrossfade.setBounds(0, 0, w, h);
+            toggleCrossfade.setBounds(0, 0, w, w);
+            layoutToggleIcon();
+            if (!frameAnimator.isRunning()) {
+                if (this.isChecked) {
+                    setToggleToEnd();
+                } else {
+                    setToggleToStart();
+                }
+            }
+        }
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        super.onLayout(changed, l, t, r, b);
+        // children may change their size while this view keeps its frame
+        syncGeometry();
+        if (layoutStateUpdatePending) {
+            layoutStateUpdatePending = false;
+            updateState();
         }
+    }
 
-        TransitionDrawable backgroundTransition = new TransitionDrawable(backgrounds);
-        slidingButtonIv.setBackground(backgroundTransition);
-        backgroundTransition.startTransition((int) animationDuration);
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (renderMode == RenderMode.VIEWS) {
+            return;
+        }
+        trackCrossfade.draw(canvas);
+        drawLabel(canvas, 0F, 0F, getWidth(), getHeight());
+
+        int saveCount = canvas.save();
+        canvas.translate(0F, toggleY);
+        toggleCrossfade.draw(canvas);
+        iconCrossfade.draw(canvas);
+        canvas.restoreToCount(saveCount);
+    }
+
+    @Override
+    protected boolean drawChild(Canvas canvas, View child, long drawingTime) {
+        boolean more = super.drawChild(canvas, child, drawingTime);
+        if (child == buttonSwipeableView) {
+            drawLabel(canvas, child.getX(), child.getY(), child.getX() + child.getWidth(), child.getY() + child.getHeight());
+        }
+        return more;
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (renderMode == RenderMode.VIEWS) {
+            // the down event was already seen by onInterceptTouchEvent
+            if (event.getActionMasked() != MotionEvent.ACTION_DOWN && onGesture(event)) {
+                return true;
+            }
+            return super.onTouchEvent(event);
+        }
+        if (!this.isEnabled) {
+            return false;
+        }
+        // like the inflated toggle and track, a touch that did not drag or leave to the parent is a click
+        boolean click = event.getActionMasked() == MotionEvent.ACTION_UP
+                && (gestureState == GESTURE_NONE || gestureState == GESTURE_PENDING);
+        onGesture(event);
+        if (click) {
+            animateClick();
+        }
+        return true;
+    }
+
+    @Override
+    protected boolean verifyDrawable(@NonNull Drawable who) {
+        return super.verifyDrawable(who)
+                || (renderMode == RenderMode.FLAT
+                && (who == trackCrossfade || who == toggleCrossfade || who == iconCrossfade));
+    }
+
+    @Override
+    public void invalidateDrawable(@NonNull Drawable drawable) {
+        if (renderMode == RenderMode.FLAT && (drawable == toggleCrossfade || drawable == iconCrossfade)) {
+            // their bounds are relative to the toggle, which is drawn translated
+            invalidate();
+        } else {
+            super.invalidateDrawable(drawable);
+        }
     }
 
     /**
-     * Animation change toggle background.
+     * Follow the finger through every sample of a batched move event, so a fast drag is not cut short
+     * at the track end. The toggle is moved once per event.
      *
-     * @param event parameter with a new coordinate
+     * @param event move event in the coordinates of this button
      */
     private void onButtonMove(MotionEvent event) {
-        float newCoordinates = slidingButtonIv.getY() + event.getY();
-
-        if (slidingButtonIv.getY() >= 0
-                && newCoordinates + ((float) slidingButtonIv.getHeight() / 2) < getHeight()
-        ) {
-            if (slidingButtonIv.getY() + ((float) slidingButtonIv.getHeight() / 2) < newCoordinates
-                    || newCoordinates - ((float) slidingButtonIv.getHeight() / 2) > buttonSwipeableView.getY()
-            ) {
-                slidingButtonIv.setY(newCoordinates - ((float) slidingButtonIv.getHeight() / 2));
-            }
+        float y = toggleY;
+        int historySize = event.getHistorySize();
+        for (int i = 0; i < historySize; i++) {
+            y = dragTo(y, event.getHistoricalY(i), event.getHistoricalEventTime(i));
+        }
+        y = dragTo(y, event.getY(), event.getEventTime());
+
+        if (isTouchPredictionEnabled && touchVelocity != 0F) {
+            float predictedFingerY = fingerY + touchVelocity * TOUCH_PREDICTION_MS;
+            y = stateMachine.drag(y, predictedFingerY - y);
+        }
+        if (y != toggleY) {
+            moveToggle(y);
+        }
+    }
+
+    /**
+     * @param y       toggle coordinate before the sample
+     * @param fingerY finger coordinate of the sample in button coordinates
+     * @param timeMs  event time of the sample
+     * @return toggle coordinate after the sample
+     */
+    private float dragTo(float y, float fingerY, long timeMs) {
+        if (fingerTimeMs >= 0 && timeMs > fingerTimeMs) {
+            touchVelocity = (fingerY - this.fingerY) / (timeMs - fingerTimeMs);
         }
+        this.fingerY = fingerY;
+        fingerTimeMs = timeMs;
+        return stateMachine.drag(y, fingerY - y);
+    }
+
+    /**
+     * Forget the finger of the previous gesture
+     */
+    private void resetFingerTracking() {
+        fingerTimeMs = -1;
+        touchVelocity = 0F;
     }
 
     private void onButtonMoved() {
-        if (this.isChecked) {
-            if (slidingButtonIv.getY() < buttonSwipeableView.getHeight() * swipeProgressToStart) {
+        boolean flingEnabled = settleMode == SettleMode.SPRING && velocityTracker != null;
+        if (flingEnabled) {
+            velocityTracker.computeCurrentVelocity(1000, maxFlingVelocity);
+            releaseVelocity = velocityTracker.getYVelocity();
+        }
+
+        switch (stateMachine.release(this.isChecked, toggleY, releaseVelocity, flingEnabled)) {
+            case ANIMATE_TO_END:
+                commitOptimistically(true);
+                animateToggleToEnd();
+                break;
+            case ANIMATE_TO_START:
+                commitOptimistically(false);
                 animateToggleToStart();
-            } else {
+                break;
+            case RETURN_TO_END:
                 returnToggleToEnd();
-            }
-        } else {
-            if (slidingButtonIv.getY() > buttonSwipeableView.getHeight() * swipeProgressToFinish) {
-                animateToggleToEnd();
-            } else {
+                break;
+            case RETURN_TO_START:
                 returnToggleToStart();
-            }
+                break;
         }
     }
 
     /**
-     * Parse attributes from xml.
+     * Commit the state the release decided right away when an optimistic commit listener is set,
+     * the animation that follows only shows it
+     */
+    private void commitOptimistically(boolean checked) {
+        if (onCommitListener == null) {
+            return;
+        }
+        SwipeCommit commit = new SwipeCommit(this, ++commitGeneration, checked);
+        this.isChecked = checked;
+        stateStream.publish(checked);
+        onCommitListener.onCommit(checked, commit);
+    }
+
+    /**
+     * The state is committed but the toggle waits for {@link #delayedStateAnimation}
+     */
+    private boolean isStateAnimationDelayed;
+
+    /**
+     * Starts a delayed animation of {@link #commitCheckedAnimated(boolean, long)}
+     */
+    private final Runnable delayedStateAnimation = () -> {
+        isStateAnimationDelayed = false;
+        animateToCommittedState();
+    };
+
+    /**
+     * Commit a state without publishing it and show the change with the toggle animation.
+     * Used by {@link SwipeButtonGroup}, which reports the changes of all its buttons at once.
      *
-     * @param attrs passed attributes from XML file
-     */
-    private void parseAttr(AttributeSet attrs) throws Throwable {
-        TypedArray typedArray = context.obtainStyledAttributes(attrs, R.styleable.SwipeableButton);
-
-        setChecked(typedArray.getBoolean(R.styleable.SwipeableButton_isChecked, false));
-        setClickToSwipeEnable(typedArray.getBoolean(R.styleable.SwipeableButton_isClickToSwipeEnable, true));
-        setSwipeProgressToFinish(typedArray.getFloat(R.styleable.SwipeableButton_thresholdEnd, swipeProgressToFinish));
-        setSwipeProgressToStart(1 - typedArray.getFloat(R.styleable.SwipeableButton_thresholdStart, swipeProgressToStart));
-
-        setCheckedText(typedArray.getString(R.styleable.SwipeableButton_textChecked) != null
-                ? typedArray.getString(R.styleable.SwipeableButton_textChecked) : context.getString(
-                typedArray.getResourceId(
-                        R.styleable.SwipeableButton_textChecked,
-                        R.string.checked_text
-                )
-        ));
-
-        setUncheckedText(typedArray.getString(R.styleable.SwipeableButton_textUnchecked) != null
-                ? typedArray.getString(R.styleable.SwipeableButton_textUnchecked) : context.getString(
-                typedArray.getResourceId(
-                        R.styleable.SwipeableButton_textUnchecked,
-                        R.string.unchecked_text
-                )
-        ));
-
-        setCheckedTextColor((typedArray.getInt(R.styleable.SwipeableButton_textColorChecked, 0) != 0) ?
-                typedArray.getInt(R.styleable.SwipeableButton_textColorChecked, 0) :
-                ContextCompat.getColor(context, typedArray.getResourceId(
-                        R.styleable.SwipeableButton_textColorChecked,
-                        android.R.color.white
-                )));
-
-
-        setUncheckedTextColor((typedArray.getInt(R.styleable.SwipeableButton_textColorUnChecked, 0) != 0) ?
-                typedArray.getInt(R.styleable.SwipeableButton_textColorUnChecked, 0) :
-                ContextCompat.getColor(context, typedArray.getResourceId(
-                        R.styleable.SwipeableButton_textColorUnChecked,
-                        android.R.color.black
-                )));
-
-
-        setCheckedIcon(typedArray.getDrawable(R.styleable.SwipeableButton_checkedIcon) != null
-                ? typedArray.getDrawable(R.styleable.SwipeableButton_checkedIcon) : ContextCompat.getDrawable(
-                context, typedArray.getResourceId(
-                        R.styleable.SwipeableButton_checkedIcon,
-                        R.drawable.ic_stop
-                )));
-        setUncheckedIcon(typedArray.getDrawable(R.styleable.SwipeableButton_uncheckedIcon) != null
-                ? typedArray.getDrawable(R.styleable.SwipeableButton_uncheckedIcon) : ContextCompat.getDrawable(
-                context, typedArray.getResourceId(
-                        R.styleable.SwipeableButton_uncheckedIcon,
-                        R.drawable.ic_play
-                )));
-
-        setUncheckedToggleBackground(ContextCompat.getDrawable(
-                context,
-                typedArray.getResourceId(
-                        R.styleable.SwipeableButton_uncheckedToggleBackground,
-                        R.drawable.shape_unchecked_toggle
-                )
-        ));
-
-        setCheckedToggleBackground(ContextCompat.getDrawable(
-                context,
-                typedArray.getResourceId(
-                        R.styleable.SwipeableButton_checkedToggleBackground,
-                        R.drawable.shape_checked_toggle
-                )
-        ));
-
-        setCheckedBackground(ContextCompat.getDrawable(
-                context,
-                typedArray.getResourceId(
-                        R.styleable.SwipeableButton_checkedBackground,
-                        R.drawable.shape_scrolling_view_checked
-                )
-        ));
-        setUncheckedBackground(ContextCompat.getDrawable(
-                context,
-                typedArray.getResourceId(
-                        R.styleable.SwipeableButton_uncheckedBackground,
-                        R.drawable.shape_scrolling_view_unchecked
-                )
-        ));
-
-        setTextSize((typedArray.getDimensionPixelSize(
-                R.styleable.SwipeableButton_textSize, 0) != 0) ?
-                typedArray.getDimensionPixelSize(R.styleable.SwipeableButton_textSize, 0) :
-                context.getResources().getDimensionPixelSize(R.dimen.default_text_size)
-        );
+     * @param checked      new state
+     * @param startDelayMs delay before the animation starts
+     */
+    void commitCheckedAnimated(boolean checked, long startDelayMs) {
+        // a start that is still pending is replaced, the toggle animates from where it is
+        isStateAnimationDelayed = false;
+        interruptAnimation();
+        commitGeneration++;
+        this.isChecked = checked;
+        if (!isLaidOut()) {
+            requestStateUpdate();
+        } else if (startDelayMs > 0) {
+            isStateAnimationDelayed = true;
+            postDelayed(delayedStateAnimation, startDelayMs);
+        } else {
+            animateToCommittedState();
+        }
+    }
+
+    /**
+     * @return true while a state change animation runs, it commits its target state when it ends
+     */
+    boolean isTransitionRunning() {
+        return frameAnimator.isRunning() && frameAnimator.isTransition();
+    }
 
-        setAnimationDuration((long) typedArray.getFloat(
-                R.styleable.SwipeableButton_durationAnimation,
-                animationDuration
-        ));
+    private void animateToCommittedState() {
+        if (this.isChecked) {
+            animateToggleToEnd();
+        } else {
+            animateToggleToStart();
+        }
+    }
+
+    /**
+     * Roll back a failed optimistic commit, called on the main thread
+     */
+    void onCommitFailed(SwipeCommit commit) {
+        if (commit.getGeneration() != commitGeneration) {
+            // the state changed again since, the failure is outdated
+            return;
+        }
+        boolean previous = !commit.isChecked();
+        commitGeneration++;
+        this.isChecked = previous;
+        stateStream.publish(previous);
+        animateToCommittedState();
+    }
 
-        typedArray.recycle();
+    /**
+     * Apply the behaviour part of a resolved style, the resources are taken over in {@link #init(int, int)}.
+     *
+     * @param style resolved style of this button
+     */
+    private void applyStyle(SwipeButtonStyle style) throws Throwable {
+        setChecked(style.isChecked);
+        setClickToSwipeEnable(style.isClickToSwipeEnable);
+        setSwipeProgressToFinish(style.thresholdEnd);
+        setSwipeProgressToStart(1 - style.thresholdStart);
+        setAnimationDuration(style.animationDuration);
     }
 
     private void setActivatedStyle() {
-        buttonSwipeableView.setBackground(checkedBackground);
-        slidingButtonIv.setBackground(checkedToggleBackground);
-        slidingButtonIv.setImageDrawable(checkedIcon);
-//        if (buttonSwipeableTv.text != checkedText) {
-//            buttonSwipeableTv.text = checkedText
-//        }
-//        buttonSwipeableTv.textSize = textSize
-//        buttonSwipeableTv.setTextColor(checkedTextColor)
+        trackCrossfade.setLevel(CrossfadeDrawable.MAX_LEVEL);
+        toggleCrossfade.setLevel(CrossfadeDrawable.MAX_LEVEL);
+        iconCrossfade.setLevel(CrossfadeDrawable.MAX_LEVEL);
+        setLabelStyle(true, checkedTextColor, LABEL_OFFSET_CHECKED);
     }
 
     private void setDeactivatedStyle() {
-        buttonSwipeableView.setBackground(uncheckedBackground);
-        slidingButtonIv.setBackground(uncheckedToggleBackground);
-        slidingButtonIv.setImageDrawable(uncheckedIcon);
-//        if (buttonSwipeableTv.text != uncheckedText) {
-//            buttonSwipeableTv.text = uncheckedText
-//        }
-//        buttonSwipeableTv.textSize = textSize
-//        buttonSwipeableTv.setTextColor(uncheckedTextColor)
+        trackCrossfade.setLevel(0);
+        toggleCrossfade.setLevel(0);
+        iconCrossfade.setLevel(0);
+        setLabelStyle(false, uncheckedTextColor, LABEL_OFFSET_UNCHECKED);
+    }
+
+    /**
+     * Show the label of the committed state
+     */
+    private void restoreLabelStyle() {
+        if (this.isChecked) {
+            setLabelStyle(true, checkedTextColor, LABEL_OFFSET_CHECKED);
+        } else {
+            setLabelStyle(false, uncheckedTextColor, LABEL_OFFSET_UNCHECKED);
+        }
+    }
+
+    private void setLabelStyle(boolean checked, int color, float offset) {
+        labelChecked = checked;
+        labelColor = color;
+        labelAlpha = 1F;
+        labelOffset = offset;
+        invalidate();
+    }
+
+    /**
+     * Draw the label centered in the part of the track the toggle does not cover.
+     * Uses the cached layouts and a translation, nothing is measured, laid out or allocated here.
+     */
+    private void drawLabel(Canvas canvas, float left, float top, float right, float bottom) {
+        labelLayouts.setWidth((int) (right - left));
+        StaticLayout layout = labelLayouts.getLayout(labelChecked);
+        if (layout == null || labelAlpha <= 0F) {
+            return;
+        }
+        TextPaint paint = layout.getPaint();
+        paint.setColor(labelColor);
+        paint.setAlpha(Math.round(Color.alpha(labelColor) * labelAlpha));
+
+        float centerY = (top + bottom) / 2F + labelOffset * getToggleSize();
+
+        int saveCount = canvas.save();
+        canvas.translate(left, centerY - layout.getHeight() / 2F);
+        layout.draw(canvas);
+        canvas.restoreToCount(saveCount);
     }
 }
@@ -0,0 +1,106 @@
+package com.demoapp.swipedemo;
+
+import android.content.Context;
+import android.content.MutableContextWrapper;
+import android.os.Looper;
+import android.os.MessageQueue;
+
+import java.util.ArrayDeque;
+
+/**
+ * Pool of ready-made {@link SwipebleButton}s for screens with many buttons.
+ * {@link #prewarm(int)} inflates and styles buttons while the main thread is idle, one per idle pass,
+ * so the work stays off the critical path of the first frame. The screen then takes its buttons
+ * with {@link #acquire(Context)} instead of inflating them on demand.
+ * Buttons are built on the main thread, their animations and layout caches are bound to its looper.
+ * Must be used from the main thread.
+ */
+final class SwipebleButtonPool {
+
+    private final Context context;
+    private final int defStyleAttr;
+    private final int defStyleRes;
+    private final ArrayDeque<SwipebleButton> buttons = new ArrayDeque<>();
+
+    private int targetSize;
+    private boolean isIdleHandlerAdded;
+
+    /**
+     * Builds one button per idle pass until the pool is warm
+     */
+    private final MessageQueue.IdleHandler prewarmIdleHandler = () -> {
+        if (buttons.size() < targetSize) {
+            buttons.add(create());
+        }
+        isIdleHandlerAdded = buttons.size() < targetSize;
+        return isIdleHandlerAdded;
+    };
+
+    /**
+     * @param context      themed context the buttons are styled with
+     * @param defStyleAttr theme attribute with the default style of the buttons, may be 0
+     * @param defStyleRes  default style resource of the buttons, may be 0
+     */
+    SwipebleButtonPool(Context context, int defStyleAttr, int defStyleRes) {
+        this.context = context;
+        this.defStyleAttr = defStyleAttr;
+        this.defStyleRes = defStyleRes;
+    }
+
+    /**
+     * Fill the pool up to the given number of buttons during idle time
+     *
+     * @param count number of buttons to keep ready
+     */
+    void prewarm(int count) throws Throwable {
+        if (count < 0) {
+            throw new Throwable("Illegal value argument. Value must be 0 or greater.");
+        }
+        targetSize = count;
+        if (buttons.size() < targetSize && !isIdleHandlerAdded) {
+            isIdleHandlerAdded = true;
+            Looper.myQueue().addIdleHandler(prewarmIdleHandler);
+        }
+    }
+
+    /**
+     * Take a button out of the pool, or build one right away when the pool is empty.
+     * A pooled button is moved to the given context, which should use the theme of the pool.
+     *
+     * @param context context of the screen the button is added to
+     */
+    SwipebleButton acquire(Context context) {
+        SwipebleButton button = buttons.poll();
+        if (button == null) {
+            button = create();
+        }
+        ((MutableContextWrapper) button.getContext()).setBaseContext(context);
+        return button;
+    }
+
+    /**
+     * @return number of buttons that are ready
+     */
+    int size() {
+        return buttons.size();
+    }
+
+    /**
+     * Drop the ready buttons and stop prewarming
+     */
+    void clear() {
+        targetSize = 0;
+        buttons.clear();
+        if (isIdleHandlerAdded) {
+            isIdleHandlerAdded = false;
+            Looper.myQueue().removeIdleHandler(prewarmIdleHandler);
+        }
+    }
+
+    /**
+     * The button gets a context wrapper, so it can be handed to another screen later
+     */
+    private SwipebleButton create() {
+        return new SwipebleButton(new MutableContextWrapper(context), null, defStyleAttr, defStyleRes);
+    }
+}
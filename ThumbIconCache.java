@@ -0,0 +1,221 @@
+package com.demoapp.swipedemo;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.drawable.Animatable;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Process-wide cache of rasterized toggle icons, shared by every {@link SwipebleButton}.
+ * Icons like the default vector drawables are drawn into a bitmap once per resource, configuration,
+ * size and tint, every button then draws that bitmap. The cache is bounded in bytes, evicts the least recently
+ * used bitmaps first and shrinks when the system is low on memory.
+ * Hit and miss counts are exposed to size it. Must be used from the main thread.
+ */
+final class ThumbIconCache implements ComponentCallbacks2 {
+
+    /**
+     * Tint value of icons that are drawn with their own colors
+     */
+    static final int NO_TINT = 0;
+
+    private static ThumbIconCache instance;
+
+    /**
+     * @param context any context, the cache registers itself with the application for memory callbacks
+     */
+    static ThumbIconCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new ThumbIconCache(defaultMaxBytes());
+            context.getApplicationContext().registerComponentCallbacks(instance);
+        }
+        return instance;
+    }
+
+    /**
+     * A small part of the heap, icons are small and there are only a few distinct ones
+     */
+    private static int defaultMaxBytes() {
+        return (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 64);
+    }
+
+    private final LruCache<Key, Bitmap> bitmaps;
+
+    /**
+     * Reused for lookups, only stored keys are allocated
+     */
+    private final Key lookupKey = new Key();
+
+    private ThumbIconCache(int maxBytes) {
+        bitmaps = new LruCache<Key, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(Key key, Bitmap bitmap) {
+                return bitmap.getAllocationByteCount();
+            }
+        };
+    }
+
+    /**
+     * Get a drawable that draws the cached bitmap of the icon.
+     * Icons that draw a bitmap already, change with their state or animate are returned as they are,
+     * as well as icons without a resource id: drawable states are copied per instance from API 24,
+     * so only the resource identifies the same icon in different buttons.
+     *
+     * @param resources resources the drawable is created for
+     * @param icon      icon to rasterize at its intrinsic size
+     * @param resId     resource the icon was loaded from, 0 when it is not known
+     * @param tint      tint color of the icon, {@link #NO_TINT} for none
+     */
+    Drawable obtain(Resources resources, Drawable icon, int resId, int tint) {
+        if (icon == null
+                || resId == 0
+                || icon instanceof BitmapDrawable
+                || icon instanceof Animatable
+                || icon.isStateful()) {
+            return icon;
+        }
+        Drawable.ConstantState constantState = icon.getConstantState();
+        int width = icon.getIntrinsicWidth();
+        int height = icon.getIntrinsicHeight();
+        if (constantState == null || width <= 0 || height <= 0) {
+            return icon;
+        }
+
+        Configuration configuration = resources.getConfiguration();
+        lookupKey.set(resId, configuration, width, height, tint);
+        Bitmap bitmap = bitmaps.get(lookupKey);
+        if (bitmap == null) {
+            bitmap = rasterize(resources, constantState, width, height, tint);
+            Key key = new Key();
+            key.set(resId, configuration, width, height, tint);
+            bitmaps.put(key, bitmap);
+        }
+        return new BitmapDrawable(resources, bitmap);
+    }
+
+    int hitCount() {
+        return bitmaps.hitCount();
+    }
+
+    int missCount() {
+        return bitmaps.missCount();
+    }
+
+    int evictionCount() {
+        return bitmaps.evictionCount();
+    }
+
+    /**
+     * @return bytes of all cached bitmaps
+     */
+    int size() {
+        return bitmaps.size();
+    }
+
+    int maxSize() {
+        return bitmaps.maxSize();
+    }
+
+    /**
+     * @param maxBytes new bound of the cache in bytes
+     */
+    void resize(int maxBytes) throws Throwable {
+        if (maxBytes <= 0) {
+            throw new Throwable("Illegal value argument. Value must be greater than 0.");
+        }
+        bitmaps.resize(maxBytes);
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_MODERATE) {
+            bitmaps.evictAll();
+        } else if (level >= TRIM_MEMORY_BACKGROUND || level == TRIM_MEMORY_RUNNING_LOW) {
+            bitmaps.trimToSize(bitmaps.maxSize() / 2);
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        bitmaps.evictAll();
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+        // bitmaps of the old configuration are no longer looked up, they are evicted by use
+    }
+
+    private static Bitmap rasterize(Resources resources, Drawable.ConstantState constantState,
+                                    int width, int height, int tint) {
+        // a private copy, tinting must not leak into the icons of the buttons
+        Drawable drawable = constantState.newDrawable(resources).mutate();
+        if (tint != NO_TINT) {
+            drawable.setTint(tint);
+        }
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        drawable.setBounds(0, 0, width, height);
+        drawable.draw(new Canvas(bitmap));
+        return bitmap;
+    }
+
+    /**
+     * Resource of the icon and the parts of the configuration that select or draw its variant
+     */
+    private static final class Key {
+
+        private int resId;
+        private int densityDpi;
+        private int nightMode;
+        private int layoutDirection;
+        private int width;
+        private int height;
+        private int tint;
+
+        void set(int resId, Configuration configuration, int width, int height, int tint) {
+            this.resId = resId;
+            this.densityDpi = configuration.densityDpi;
+            this.nightMode = configuration.uiMode & Configuration.UI_MODE_NIGHT_MASK;
+            this.layoutDirection = configuration.getLayoutDirection();
+            this.width = width;
+            this.height = height;
+            this.tint = tint;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return resId == key.resId
+                    && densityDpi == key.densityDpi
+                    && nightMode == key.nightMode
+                    && layoutDirection == key.layoutDirection
+                    && width == key.width
+                    && height == key.height
+                    && tint == key.tint;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = resId;
+            result = 31 * result + densityDpi;
+            result = 31 * result + nightMode;
+            result = 31 * result + layoutDirection;
+            result = 31 * result + width;
+            result = 31 * result + height;
+            return 31 * result + tint;
+        }
+    }
+}
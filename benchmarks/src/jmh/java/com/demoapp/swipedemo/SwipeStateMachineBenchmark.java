@@ -0,0 +1,103 @@
+package com.demoapp.swipedemo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-event cost of the gesture decisions of {@link SwipeStateMachine}.
+ * Run with the GC profiler (the default of the {@code jmh} task) to see the allocation rate,
+ * which is expected to be 0 bytes per operation for every benchmark.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SwipeStateMachineBenchmark {
+
+    private static final int HEIGHT = 1000;
+    private static final int TOGGLE_SIZE = 200;
+
+    /**
+     * Touch samples of one drag over the whole track and back
+     */
+    private static final int DRAG_SAMPLES = 64;
+
+    private final SwipeStateMachine stateMachine = new SwipeStateMachine();
+    private final float[] fingerSamples = new float[DRAG_SAMPLES];
+    private final float[] releaseVelocities = {0F, 40F, -40F, 3000F, -3000F};
+
+    private int sample;
+    private float toggleY;
+    private boolean checked;
+
+    @Setup
+    public void setUp() {
+        stateMachine.setGeometry(HEIGHT, HEIGHT, 0F, TOGGLE_SIZE);
+        stateMachine.setThresholds(0.5F, 0.5F);
+        stateMachine.setMinFlingVelocity(100F);
+        for (int i = 0; i < DRAG_SAMPLES; i++) {
+            float fraction = (float) i / (DRAG_SAMPLES / 2);
+            fingerSamples[i] = (fraction <= 1F ? fraction : 2F - fraction) * HEIGHT;
+        }
+    }
+
+    /**
+     * One move event of a drag
+     */
+    @Benchmark
+    public float drag() {
+        float fingerY = fingerSamples[sample];
+        sample = (sample + 1) % DRAG_SAMPLES;
+        toggleY = stateMachine.drag(toggleY, fingerY - toggleY);
+        return toggleY;
+    }
+
+    /**
+     * One release decision, alternating state, position and velocity
+     */
+    @Benchmark
+    public SwipeStateMachine.Release release() {
+        sample = (sample + 1) % DRAG_SAMPLES;
+        checked = !checked;
+        float velocity = releaseVelocities[sample % releaseVelocities.length];
+        return stateMachine.release(checked, fingerSamples[sample], velocity, true);
+    }
+
+    /**
+     * A whole gesture: every move event of a drag and the release at its end
+     */
+    @Benchmark
+    @OperationsPerInvocation(DRAG_SAMPLES + 1)
+    public SwipeStateMachine.Release dragAndRelease() {
+        float y = 0F;
+        for (int i = 0; i < DRAG_SAMPLES; i++) {
+            y = stateMachine.drag(y, fingerSamples[i] - y);
+        }
+        checked = !checked;
+        return stateMachine.release(checked, y, 0F, false);
+    }
+
+    /**
+     * A tap on the resting toggle: the release keeps the state and the click bounces
+     */
+    @Benchmark
+    public float click() {
+        checked = !checked;
+        float restY = checked ? stateMachine.getToggleTravel() : 0F;
+        SwipeStateMachine.Release release = stateMachine.release(checked, restY, 0F, false);
+        return release.ordinal() + stateMachine.clickPeak(checked);
+    }
+}
@@ -0,0 +1,145 @@
+package com.demoapp.swipedemo;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SwipeMetricsTest {
+
+    private static final long MS = 1_000_000L;
+    private static final long FRAME = 16_666_667L;
+
+    /**
+     * Values of every report, the metrics instance is reused between reports
+     */
+    private static final class Report {
+        long touchToMoveNanos;
+        long releaseToSettleNanos;
+        int renderedFrames;
+        int droppedFrames;
+        boolean transition;
+        long updateStateNanos;
+        int updateStateCount;
+    }
+
+    private final List<Report> reports = new ArrayList<>();
+    private long now;
+    private SwipeMetrics metrics;
+
+    @Before
+    public void setUp() {
+        metrics = new SwipeMetrics(metrics -> {
+            Report report = new Report();
+            report.touchToMoveNanos = metrics.getTouchToMoveNanos();
+            report.releaseToSettleNanos = metrics.getReleaseToSettleNanos();
+            report.renderedFrames = metrics.getRenderedFrames();
+            report.droppedFrames = metrics.getDroppedFrames();
+            report.transition = metrics.isTransition();
+            report.updateStateNanos = metrics.getUpdateStateNanos();
+            report.updateStateCount = metrics.getUpdateStateCount();
+            reports.add(report);
+        });
+        metrics.setClock(() -> now);
+    }
+
+    @Test
+    public void gestureReportsLatencies() {
+        now = 0L;
+        metrics.onTouchDown();
+        now = 12 * MS;
+        metrics.onToggleMove();
+        now = 20 * MS;
+        metrics.onToggleMove();
+        now = 100 * MS;
+        metrics.onRelease();
+        now = 300 * MS;
+        metrics.onSettled(true);
+
+        assertEquals(1, reports.size());
+        Report report = reports.get(0);
+        assertEquals(12 * MS, report.touchToMoveNanos);
+        assertEquals(200 * MS, report.releaseToSettleNanos);
+        assertTrue(report.transition);
+    }
+
+    @Test
+    public void animationWithoutGestureMeasuresNoLatency() {
+        metrics.onAnimationFrame(0L);
+        metrics.onSettled(false);
+
+        Report report = reports.get(0);
+        assertEquals(SwipeMetrics.NOT_MEASURED, report.touchToMoveNanos);
+        assertEquals(SwipeMetrics.NOT_MEASURED, report.releaseToSettleNanos);
+        assertFalse(report.transition);
+    }
+
+    @Test
+    public void longFrameGapCountsDroppedFrames() {
+        metrics.onAnimationFrame(0L);
+        metrics.onAnimationFrame(FRAME);
+        // two frames are missing before this one
+        metrics.onAnimationFrame(4 * FRAME);
+        metrics.onSettled(true);
+
+        Report report = reports.get(0);
+        assertEquals(3, report.renderedFrames);
+        assertEquals(2, report.droppedFrames);
+    }
+
+    @Test
+    public void sampleIntervalSkipsSamples() throws Throwable {
+        metrics.setSampleInterval(2);
+        for (int i = 0; i < 4; i++) {
+            metrics.onAnimationFrame(i * 10 * FRAME);
+            metrics.onSettled(true);
+        }
+        assertEquals(2, reports.size());
+    }
+
+    @Test
+    public void cancelledSampleIsNotContinued() {
+        now = 0L;
+        metrics.onTouchDown();
+        metrics.onRelease();
+        metrics.onAnimationFrame(0L);
+        // e.g. a touch interrupts the animation, nothing settles
+        metrics.onCancelled();
+
+        // a later animation opens a sample of its own
+        now = 10_000 * MS;
+        metrics.onAnimationFrame(600 * FRAME);
+        metrics.onAnimationFrame(601 * FRAME);
+        now = 10_020 * MS;
+        metrics.onSettled(true);
+
+        assertEquals(1, reports.size());
+        Report report = reports.get(0);
+        assertEquals(2, report.renderedFrames);
+        assertEquals(0, report.droppedFrames);
+        assertEquals(SwipeMetrics.NOT_MEASURED, report.releaseToSettleNanos);
+    }
+
+    @Test
+    public void updateStateTimeIsReportedOnce() {
+        now = 0L;
+        metrics.onUpdateStateStart();
+        now = 3 * MS;
+        metrics.onUpdateStateEnd();
+
+        metrics.onAnimationFrame(0L);
+        metrics.onSettled(true);
+        metrics.onAnimationFrame(0L);
+        metrics.onSettled(true);
+
+        assertEquals(3 * MS, reports.get(0).updateStateNanos);
+        assertEquals(1, reports.get(0).updateStateCount);
+        assertEquals(0L, reports.get(1).updateStateNanos);
+        assertEquals(0, reports.get(1).updateStateCount);
+    }
+}
@@ -0,0 +1,87 @@
+package com.demoapp.swipedemo;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class SwipeStateMachineTest {
+
+    private static final float DELTA = 0.001F;
+
+    /**
+     * Button of 400 px with a track over its full height and a toggle of 100 px
+     */
+    private static final int HEIGHT = 400;
+    private static final int TOGGLE_SIZE = 100;
+    private static final float MIN_FLING_VELOCITY = 50F;
+
+    private SwipeStateMachine stateMachine;
+
+    @Before
+    public void setUp() {
+        stateMachine = new SwipeStateMachine();
+        stateMachine.setGeometry(HEIGHT, HEIGHT, 0F, TOGGLE_SIZE);
+        stateMachine.setThresholds(0.5F, 0.5F);
+        stateMachine.setMinFlingVelocity(MIN_FLING_VELOCITY);
+    }
+
+    @Test
+    public void toggleTravelIsTrackWithoutToggle() {
+        assertEquals(300, stateMachine.getToggleTravel());
+    }
+
+    @Test
+    public void dragCentersToggleUnderFinger() {
+        // finger 150 px below the top of the resting toggle
+        assertEquals(100F, stateMachine.drag(0F, 150F), DELTA);
+    }
+
+    @Test
+    public void dragStopsAtButtonEnd() {
+        // the toggle would leave the button
+        assertEquals(280F, stateMachine.drag(280F, 100F), DELTA);
+    }
+
+    @Test
+    public void releasePastThresholdChangesState() {
+        assertEquals(SwipeStateMachine.Release.ANIMATE_TO_END, stateMachine.release(false, 201F, 0F, false));
+        assertEquals(SwipeStateMachine.Release.ANIMATE_TO_START, stateMachine.release(true, 199F, 0F, false));
+    }
+
+    @Test
+    public void releaseBeforeThresholdKeepsState() {
+        assertEquals(SwipeStateMachine.Release.RETURN_TO_START, stateMachine.release(false, 200F, 0F, false));
+        assertEquals(SwipeStateMachine.Release.RETURN_TO_END, stateMachine.release(true, 200F, 0F, false));
+    }
+
+    @Test
+    public void thresholdsFollowSettings() {
+        stateMachine.setThresholds(0.25F, 0.75F);
+        assertEquals(SwipeStateMachine.Release.ANIMATE_TO_END, stateMachine.release(false, 101F, 0F, false));
+        assertEquals(SwipeStateMachine.Release.ANIMATE_TO_START, stateMachine.release(true, 299F, 0F, false));
+    }
+
+    @Test
+    public void flingDecidesByDirection() {
+        assertEquals(SwipeStateMachine.Release.ANIMATE_TO_END, stateMachine.release(false, 10F, 500F, true));
+        assertEquals(SwipeStateMachine.Release.RETURN_TO_START, stateMachine.release(false, 290F, -500F, true));
+        assertEquals(SwipeStateMachine.Release.ANIMATE_TO_START, stateMachine.release(true, 290F, -500F, true));
+    }
+
+    @Test
+    public void slowReleaseIsNoFling() {
+        assertEquals(SwipeStateMachine.Release.RETURN_TO_START, stateMachine.release(false, 10F, 49F, true));
+    }
+
+    @Test
+    public void flingIgnoredWhenDisabled() {
+        assertEquals(SwipeStateMachine.Release.RETURN_TO_START, stateMachine.release(false, 10F, 500F, false));
+    }
+
+    @Test
+    public void clickBouncesHalfAToggle() {
+        assertEquals(50F, stateMachine.clickPeak(false), DELTA);
+        assertEquals(250F, stateMachine.clickPeak(true), DELTA);
+    }
+}
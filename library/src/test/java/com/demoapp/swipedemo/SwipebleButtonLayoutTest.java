@@ -0,0 +1,93 @@
+package com.demoapp.swipedemo;
+
+import android.app.Activity;
+import android.content.Context;
+import android.os.Looper;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.LooperMode;
+
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * A state change animates the toggle, the crossfades and the label without a single layout pass
+ */
+@RunWith(RobolectricTestRunner.class)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class SwipebleButtonLayoutTest {
+
+    /**
+     * Long enough for every toggle animation of the button to end
+     */
+    private static final Duration ANIMATION_TIME = Duration.ofSeconds(2);
+
+    /**
+     * Counts the layout requests of the button. The children pass theirs up to it,
+     * as long as it was laid out since the last request.
+     */
+    private static final class CountingButton extends SwipebleButton {
+
+        int layoutRequests;
+
+        CountingButton(Context context, RenderMode renderMode) {
+            super(context, null, renderMode);
+        }
+
+        @Override
+        public void requestLayout() {
+            layoutRequests++;
+            super.requestLayout();
+        }
+    }
+
+    private Activity activity;
+
+    @Before
+    public void setUp() {
+        activity = Robolectric.buildActivity(Activity.class).setup().get();
+    }
+
+    @Test
+    public void stateChangeAnimationDoesNotRequestLayoutInViewsMode() {
+        assertAnimationsDoNotRequestLayout(SwipebleButton.RenderMode.VIEWS);
+    }
+
+    @Test
+    public void stateChangeAnimationDoesNotRequestLayoutInFlatMode() {
+        assertAnimationsDoNotRequestLayout(SwipebleButton.RenderMode.FLAT);
+    }
+
+    private void assertAnimationsDoNotRequestLayout(SwipebleButton.RenderMode renderMode) {
+        CountingButton button = new CountingButton(activity, renderMode);
+        FrameLayout root = new FrameLayout(activity);
+        root.addView(button, new FrameLayout.LayoutParams(200, 800));
+        activity.setContentView(root, new ViewGroup.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+        // first layout, and the idle prefetch of the drawables of the other state
+        shadowOf(Looper.getMainLooper()).idle();
+        assertTrue(button.isLaidOut());
+        assertFalse(button.isChecked);
+        button.layoutRequests = 0;
+
+        button.setCheckedAnimated(true);
+        shadowOf(Looper.getMainLooper()).idleFor(ANIMATION_TIME);
+        assertTrue(button.isChecked);
+
+        button.setCheckedAnimated(false);
+        shadowOf(Looper.getMainLooper()).idleFor(ANIMATION_TIME);
+        assertFalse(button.isChecked);
+
+        assertEquals(0, button.layoutRequests);
+    }
+}
@@ -0,0 +1,115 @@
+package com.demoapp.swipedemo;
+
+import android.app.Activity;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.LooperMode;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * The metrics of a button report the gestures and animations that run through it
+ */
+@RunWith(RobolectricTestRunner.class)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class SwipebleButtonMetricsTest {
+
+    /**
+     * Long enough for every toggle animation of the button to end
+     */
+    private static final Duration ANIMATION_TIME = Duration.ofSeconds(2);
+
+    private static final int WIDTH = 200;
+    private static final int HEIGHT = 800;
+
+    /**
+     * Values of every report, the metrics instance is reused between reports
+     */
+    private static final class Report {
+        long releaseToSettleNanos;
+        int renderedFrames;
+        boolean transition;
+    }
+
+    private final List<Report> reports = new ArrayList<>();
+    private SwipebleButton button;
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        // every event of the flat button reaches its onTouchEvent, no child takes the gesture
+        button = new SwipebleButton(activity, null, SwipebleButton.RenderMode.FLAT);
+        FrameLayout root = new FrameLayout(activity);
+        root.addView(button, new FrameLayout.LayoutParams(WIDTH, HEIGHT));
+        activity.setContentView(root, new ViewGroup.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+        shadowOf(Looper.getMainLooper()).idle();
+
+        SwipeMetrics metrics = new SwipeMetrics(m -> {
+            Report report = new Report();
+            report.releaseToSettleNanos = m.getReleaseToSettleNanos();
+            report.renderedFrames = m.getRenderedFrames();
+            report.transition = m.isTransition();
+            reports.add(report);
+        });
+        // the paused looper advances the system clock, not the monotonic one
+        metrics.setClock(() -> SystemClock.uptimeMillis() * 1_000_000L);
+        button.setMetrics(metrics);
+    }
+
+    @Test
+    public void swipeToOtherStateIsReported() {
+        assertFalse(button.isChecked);
+
+        // drag the toggle from the top to the bottom of the button and release it there
+        long downTime = SystemClock.uptimeMillis();
+        dispatch(downTime, MotionEvent.ACTION_DOWN, 10F);
+        for (float y = 100F; y < HEIGHT; y += 100F) {
+            dispatch(downTime, MotionEvent.ACTION_MOVE, y);
+        }
+        dispatch(downTime, MotionEvent.ACTION_UP, HEIGHT - 1F);
+        shadowOf(Looper.getMainLooper()).idleFor(ANIMATION_TIME);
+
+        assertTrue(button.isChecked);
+        assertEquals(1, reports.size());
+        Report report = reports.get(0);
+        assertTrue(report.transition);
+        assertTrue(report.renderedFrames > 0);
+        assertNotEquals(SwipeMetrics.NOT_MEASURED, report.releaseToSettleNanos);
+    }
+
+    @Test
+    public void animatedStateChangeIsReported() {
+        button.setCheckedAnimated(true);
+        shadowOf(Looper.getMainLooper()).idleFor(ANIMATION_TIME);
+
+        assertTrue(button.isChecked);
+        assertEquals(1, reports.size());
+        assertTrue(reports.get(0).transition);
+        assertTrue(reports.get(0).renderedFrames > 0);
+    }
+
+    private void dispatch(long downTime, int action, float y) {
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(16));
+        MotionEvent event = MotionEvent.obtain(downTime, SystemClock.uptimeMillis(), action, WIDTH / 2F, y, 0);
+        button.dispatchTouchEvent(event);
+        event.recycle();
+    }
+}